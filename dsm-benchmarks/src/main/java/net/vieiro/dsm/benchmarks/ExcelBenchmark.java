@@ -0,0 +1,124 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.algorithms.FAS;
+import net.vieiro.dsm.graph.dsm.DSMExcelGenerator;
+
+/**
+ * Benchmarks generating the Excel DSM of a graph, in both formats, with small
+ * graphs that fit in XLS sheets. See LargeExcelBenchmark for bigger ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+public class ExcelBenchmark {
+
+    @Param({"100", "250"})
+    public int nodes;
+
+    @Param({"5"})
+    public int edgesPerNode;
+
+    @Param({"0.05"})
+    public double backwardEdges;
+
+    @Param({"XLS", "XLSX"})
+    public DSMExcelGenerator.Format format;
+
+    @Param({"false", "true"})
+    public boolean sparse;
+
+    @Param({"true", "false"})
+    public boolean autoSizeColumns;
+
+    @Param({"common", "sequential"})
+    public String pool;
+
+    private DirectedGraph<String> graph;
+    private List<String> fas;
+
+    @Setup
+    public void setUp() {
+        graph = new SyntheticGraph(nodes, edgesPerNode, backwardEdges).build();
+        fas = FAS.fas(graph);
+    }
+
+    @Benchmark
+    public long generateExcel() throws Exception {
+        return generateExcel(graph, fas, format, sparse, autoSizeColumns, pool);
+    }
+
+    /**
+     * Generates a workbook, discarding it.
+     *
+     * @param pool "common" to compute rows in the common pool, "sequential" to
+     * compute them in the writer thread.
+     * @return The size of the workbook, in bytes.
+     */
+    static long generateExcel(DirectedGraph<String> graph, List<String> fas, DSMExcelGenerator.Format format,
+            boolean sparse, boolean autoSizeColumns, String pool) throws IOException {
+        CountingOutputStream output = new CountingOutputStream();
+        DSMExcelGenerator<String> generator = new DSMExcelGenerator<>(graph, fas, output, format);
+        generator.setSparse(sparse);
+        generator.setAutoSizeColumns(autoSizeColumns);
+        generator.setPool("sequential".equals(pool) ? null : ForkJoinPool.commonPool());
+        generator.generate();
+        return output.count;
+    }
+
+    /**
+     * Discards the workbook, counting its bytes.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) throws IOException {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count += len;
+        }
+
+    }
+
+}
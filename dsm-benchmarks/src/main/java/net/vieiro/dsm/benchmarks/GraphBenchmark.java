@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.benchmarks;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.algorithms.FAS;
+
+/**
+ * Benchmarks building graphs, finding sinks and sources and computing a FAS.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    @Param({"5", "20"})
+    public int edgesPerNode;
+
+    @Param({"0.0", "0.05"})
+    public double backwardEdges;
+
+    private SyntheticGraph synthetic;
+    private DirectedGraph<String> graph;
+
+    @Setup
+    public void setUp() {
+        synthetic = new SyntheticGraph(nodes, edgesPerNode, backwardEdges);
+        graph = synthetic.build();
+    }
+
+    @Benchmark
+    public DirectedGraph<String> build() {
+        return synthetic.build();
+    }
+
+    @Benchmark
+    public void sinksAndSources(Blackhole blackhole) {
+        for (Iterator<String> sinks = graph.sinks(); sinks.hasNext();) {
+            blackhole.consume(sinks.next());
+        }
+        for (Iterator<String> sources = graph.sources(); sources.hasNext();) {
+            blackhole.consume(sources.next());
+        }
+    }
+
+    @Benchmark
+    public List<String> fas() {
+        return FAS.fas(graph);
+    }
+
+}
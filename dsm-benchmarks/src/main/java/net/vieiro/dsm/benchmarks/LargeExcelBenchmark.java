@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.algorithms.FAS;
+import net.vieiro.dsm.graph.dsm.DSMExcelGenerator;
+
+/**
+ * Benchmarks generating streamed XLSX workbooks of graphs too big for XLS,
+ * comparing dense and sparse cells, autosized and estimated column widths and
+ * rows computed in parallel or in the writer thread. Sparse cells, estimated
+ * widths and the common pool are what the command line tool uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+public class LargeExcelBenchmark {
+
+    @Param({"1000", "4000"})
+    public int nodes;
+
+    @Param({"5"})
+    public int edgesPerNode;
+
+    @Param({"0.05"})
+    public double backwardEdges;
+
+    @Param({"true", "false"})
+    public boolean sparse;
+
+    @Param({"false", "true"})
+    public boolean autoSizeColumns;
+
+    @Param({"common", "sequential"})
+    public String pool;
+
+    private DirectedGraph<String> graph;
+    private List<String> fas;
+
+    @Setup
+    public void setUp() {
+        graph = new SyntheticGraph(nodes, edgesPerNode, backwardEdges).build();
+        fas = FAS.fas(graph);
+    }
+
+    @Benchmark
+    public long generateExcel() throws Exception {
+        return ExcelBenchmark.generateExcel(graph, fas, DSMExcelGenerator.Format.XLSX,
+                sparse, autoSizeColumns, pool);
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.benchmarks;
+
+import java.util.Random;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+/**
+ * A random graph with a given size, density and proportion of edges that
+ * close cycles. Graphs are generated with a fixed seed, so all runs of a
+ * benchmark use the same graphs.
+ */
+final class SyntheticGraph {
+
+    final String[] sources;
+    final String[] targets;
+
+    /**
+     * Generates a random graph. Nodes are numbered, and "forward" edges go
+     * from a node to a node with a higher number, so a graph with no backward
+     * edges is acyclic.
+     *
+     * @param nodes The number of nodes.
+     * @param edgesPerNode The average out-degree of the nodes.
+     * @param backwardEdges The fraction of edges that go from a node to a node
+     * with a lower number, creating cycles.
+     */
+    SyntheticGraph(int nodes, int edgesPerNode, double backwardEdges) {
+        Random random = new Random(42);
+        String[] names = new String[nodes];
+        for (int i = 0; i < nodes; i++) {
+            names[i] = "net.vieiro.module" + i;
+        }
+        int edges = nodes * edgesPerNode;
+        this.sources = new String[edges];
+        this.targets = new String[edges];
+        for (int e = 0; e < edges; e++) {
+            int a = random.nextInt(nodes);
+            int b = random.nextInt(nodes);
+            boolean backward = random.nextDouble() < backwardEdges;
+            int source = backward ? Math.max(a, b) : Math.min(a, b);
+            int target = backward ? Math.min(a, b) : Math.max(a, b);
+            sources[e] = names[source];
+            targets[e] = names[target];
+        }
+    }
+
+    DirectedGraph<String> build() {
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        for (int e = 0; e < sources.length; e++) {
+            builder.connect(sources[e], targets[e]);
+        }
+        return builder.build();
+    }
+
+}
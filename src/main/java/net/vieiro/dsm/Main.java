@@ -16,16 +16,22 @@
 package net.vieiro.dsm;
 
 import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.Reader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import net.vieiro.dsm.graph.DirectedGraph;
-import net.vieiro.dsm.graph.DirectedGraphBuilder;
+import net.vieiro.dsm.graph.GraphSnapshot;
+import net.vieiro.dsm.graph.algorithms.Condensation;
 import net.vieiro.dsm.graph.algorithms.FAS;
-import net.vieiro.dsm.graph.dsm.DSMExcelGenerator;
+import net.vieiro.dsm.graph.algorithms.TransitiveClosure;
+import net.vieiro.dsm.graph.algorithms.VisibilityMetrics;
+import net.vieiro.dsm.graph.dsm.DSMRenderer;
+import net.vieiro.dsm.graph.dsm.ExcelRenderer;
+import net.vieiro.dsm.io.EdgeListLoader;
 
 /**
  * Reads a simple file containing dependencies and generates an Excel sheet with
@@ -34,57 +40,61 @@ import net.vieiro.dsm.graph.dsm.DSMExcelGenerator;
  */
 public class Main {
 
-    /**
-     * Reads a graph of strings from a Reader.
-     *
-     * @param reader The reader.
-     * @return a DirectedGraph of Strings
-     * @throws Exception on exceptional circumstances.
-     */
-    private static DirectedGraph<String> read(Reader reader) throws Exception {
-        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
-        BufferedReader br = new BufferedReader(reader);
-        do {
-            String line = br.readLine();
-            if (line == null) {
-                break;
-            }
-            String[] parts = line.split(":");
-            if (parts == null || parts.length != 2) {
-                System.err.format("Warning: Ignoring line '%s'%n", line);
-            } else {
-                String source = parts[0].trim();
-                String target = parts[1].trim();
-                builder.connect(source, target);
-            }
-        } while (true);
-        return builder.build();
-    }
+    private static final String METRICS_OPTION = "--metrics";
 
     /**
      * Reads a file with the following format: - Each file is an edge, from a
-     * source node to a target node, separated by colons.
+     * source node to a target node, separated by colons. The file may also be
+     * a graph snapshot, which is detected automatically. The output is
+     * rendered by the extension of the output file (see
+     * {@link DSMRenderer#forFileName(String)}). If the output file ends with
+     * ".dsmg" a graph snapshot is written instead. With the "--metrics"
+     * option Excel workbooks get an extra sheet with visibility metrics.
      *
      * @param args The command line arguments.
      * @throws Exception thrown on exceptional circumstances.
      */
     public static void main(String[] args) throws Exception {
-        if (args.length != 1) {
-            System.err.format("java %s input-file%n", Main.class.getName());
-            System.err.println("Each line in the file is an edge from a source to a target node, separated with a colon ':'.\n");
+        boolean metrics = args.length > 0 && METRICS_OPTION.equals(args[0]);
+        if (metrics) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length != 1 && args.length != 2) {
+            System.err.format("java %s [%s] input-file [output-file]%n", Main.class.getName(), METRICS_OPTION);
+            System.err.println("Each line in the file is an edge from a source to a target node, separated with a colon ':'.");
+            System.err.println("The output file defaults to output.xlsx, and may also be a .xls, .csv, .html or .pgm file.");
+            System.err.format("Output files ending with %s are graph snapshots,%n", GraphSnapshot.EXTENSION);
+            System.err.println("that can be used as input files to skip parsing.");
+            System.err.format("With %s Excel workbooks get a sheet with visibility metrics.%n%n", METRICS_OPTION);
             System.exit(1);
         }
+        Path input = Paths.get(args[0]);
+        String outputFile = args.length == 2 ? args[1] : "output.xlsx";
+
+        DirectedGraph<String> dependencies = GraphSnapshot.isSnapshot(input)
+                ? GraphSnapshot.load(input)
+                : EdgeListLoader.loadParallel(input);
 
-        DirectedGraph<String> dependencies = null;
-        try ( FileReader reader = new FileReader(args[0])) {
-            dependencies = read(reader);
+        if (outputFile.endsWith(GraphSnapshot.EXTENSION)) {
+            GraphSnapshot.save(dependencies, Paths.get(outputFile));
+            return;
         }
 
-        List<String> fas = FAS.fas(dependencies);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Condensation<String> condensation = Condensation.of(dependencies);
+        List<String> fas = FAS.fas(condensation, pool);
 
-        try ( BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream("output.xlsx"))) {
-            DSMExcelGenerator generator = new DSMExcelGenerator(dependencies, fas, output);
-            generator.run();
+        DSMRenderer<String> renderer = DSMRenderer.forFileName(outputFile);
+        if (metrics) {
+            if (renderer instanceof ExcelRenderer) {
+                ((ExcelRenderer<String>) renderer).setMetrics(
+                        VisibilityMetrics.of(TransitiveClosure.of(condensation, pool), pool));
+            } else {
+                System.err.format("Metrics are only written to Excel workbooks, ignoring %s%n", METRICS_OPTION);
+            }
+        }
+        try ( BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            renderer.render(dependencies, fas, output);
         }
 
     }
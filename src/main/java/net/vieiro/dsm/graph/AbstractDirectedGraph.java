@@ -0,0 +1,370 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * The read API shared by DirectedGraph and MutableDirectedGraph: a set of
+ * alive nodes over a shared adjacency, with the degrees of each node in the
+ * graph.
+ *
+ * @param <ID> The equals/hashcode identifier for nodes.
+ */
+abstract class AbstractDirectedGraph<ID> {
+
+    /**
+     * The adjacency matrix
+     */
+    final Adjacency adjacency;
+    /**
+     * A map from nodes to indexes in the adjacency matrix
+     */
+    final Map<ID, Integer> indexes;
+    /**
+     * The node at each index in the adjacency matrix
+     */
+    final ID[] identifiers;
+    /**
+     * The indexes of the nodes in this graph. This may be smaller than the
+     * adjacency matrix size. This happens in subgraphs, for instance, where
+     * only a subset of the original graph are used.
+     */
+    final BitSet alive;
+    /**
+     * The set of nodes in this graph, a view over alive.
+     */
+    final Set<ID> nodes;
+    /**
+     * The in-degree of each node in this graph, by index in the adjacency
+     * matrix. Entries of nodes not in this graph are meaningless.
+     */
+    final int[] inDegree;
+    /**
+     * The out-degree of each node in this graph, by index in the adjacency
+     * matrix. Entries of nodes not in this graph are meaningless.
+     */
+    final int[] outDegree;
+
+    AbstractDirectedGraph(Map<ID, Integer> indexes, ID[] identifiers, Adjacency adjacency,
+            BitSet alive, int[] inDegree, int[] outDegree) {
+        this.adjacency = adjacency;
+        this.indexes = indexes;
+        this.identifiers = identifiers;
+        this.alive = alive;
+        this.nodes = new NodeSet<>(indexes, identifiers, alive);
+        this.inDegree = inDegree;
+        this.outDegree = outDegree;
+    }
+
+    final int checkedIndexOf(ID node) {
+        int index = indexOf(node);
+        if (index == -1) {
+            throw new NoSuchElementException(
+                    String.format("This graph does not contain node %s", Objects.toString(node)));
+        }
+        return index;
+    }
+
+    final void assertContains(int index) {
+        if (!contains(index)) {
+            throw new NoSuchElementException(
+                    String.format("This graph does not contain a node with index %d", index));
+        }
+    }
+
+    /**
+     * Returns the order (number of nodes) of the digraph.
+     *
+     * @return The number of nodes of the digraph.
+     */
+    public abstract int getOrder();
+
+    /**
+     * Returns the number of indexes in the adjacency matrix of this graph.
+     * Indexes of nodes range from 0 (inclusive) to this value (exclusive).
+     *
+     * @return The number of indexes in the adjacency matrix.
+     */
+    public int getIndexCapacity() {
+        return adjacency.size();
+    }
+
+    /**
+     * Returns the nodes in this graph.
+     *
+     * @return The nodes in this graph.
+     */
+    public Set<ID> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns true if the node is in this graph.
+     *
+     * @param node The node.
+     * @return true if the node is on this graph.
+     */
+    public boolean contains(ID node) {
+        return indexOf(node) != -1;
+    }
+
+    /**
+     * Returns true if the node with the given index is on this graph.
+     *
+     * @param index The index of the node.
+     * @return true if the node is on this graph.
+     */
+    public boolean contains(int index) {
+        return index >= 0 && alive.get(index);
+    }
+
+    /**
+     * Returns the index of a node.
+     *
+     * @param node The node.
+     * @return The index of the node, or -1 if the node is not on this graph.
+     */
+    public int indexOf(ID node) {
+        Integer index = indexes.get(node);
+        return index == null || !alive.get(index) ? -1 : index;
+    }
+
+    /**
+     * Returns the node with the given index.
+     *
+     * @param index The index of the node.
+     * @return The node.
+     * @throws NoSuchElementException if there is no such node on this graph.
+     */
+    public ID nodeAt(int index) {
+        assertContains(index);
+        return identifiers[index];
+    }
+
+    /**
+     * Returns an iterator over the indexes of the nodes in this graph, in
+     * ascending order.
+     *
+     * @return An iterator over the indexes of the nodes of this graph.
+     */
+    public PrimitiveIterator.OfInt nodeIndexes() {
+        return alive.stream().iterator();
+    }
+
+    /**
+     * Returns the in-degree (at index 0) and out-degree (at index 1) of the
+     * given node, this is, the number of incident edges (in-degree) and
+     * outward-directed edges (out-degree).
+     *
+     * @param node The node.
+     * @return An array of two integers, the first (0) is the in-degree, the
+     * second (1) is the out-degree
+     * @throws NoSuchElementException if node is not on this graph.
+     */
+    public int[] getInAndOutDegrees(ID node) {
+        int i = checkedIndexOf(node);
+        return new int[]{inDegree[i], outDegree[i]};
+    }
+
+    /**
+     * Returns the in-degree of the node with the given index.
+     *
+     * @param index The index of the node.
+     * @return The number of predecessors of the node.
+     * @throws NoSuchElementException if there is no such node on this graph.
+     */
+    public int inDegree(int index) {
+        assertContains(index);
+        return inDegree[index];
+    }
+
+    /**
+     * Returns the out-degree of the node with the given index.
+     *
+     * @param index The index of the node.
+     * @return The number of successors of the node.
+     * @throws NoSuchElementException if there is no such node on this graph.
+     */
+    public int outDegree(int index) {
+        assertContains(index);
+        return outDegree[index];
+    }
+
+    /**
+     * Returns an iterator over the successors of a given node.
+     *
+     * @param source The source node.
+     * @return An iterator over the successors of source node.
+     * @throws NoSuchElementException if source is not on this graph.
+     */
+    public Iterator<ID> successors(ID source) {
+        return new NodeIterator<>(identifiers, successors(checkedIndexOf(source)));
+    }
+
+    /**
+     * Returns an iterator over the indexes of the successors of a given node,
+     * in ascending order.
+     *
+     * @param source The index of the source node.
+     * @return An iterator over the indexes of the successors of source node.
+     * @throws NoSuchElementException if source is not on this graph.
+     */
+    public PrimitiveIterator.OfInt successors(int source) {
+        assertContains(source);
+        return new IndexIterator(adjacency.successors(source), alive::get);
+    }
+
+    /**
+     * Returns a new cursor over the indexes of the successors of nodes. A
+     * cursor can be reset to different nodes, skips nodes not in this graph,
+     * and allocates nothing while walking the graph.
+     *
+     * @return A cursor over the successors of nodes.
+     */
+    public IntCursor successorCursor() {
+        return new AliveCursor(adjacency.successorCursor(), alive);
+    }
+
+    /**
+     * Invokes an action with the index of each successor of a given node, in
+     * ascending order.
+     *
+     * @param source The index of the source node.
+     * @param action The action.
+     * @throws NoSuchElementException if source is not on this graph.
+     */
+    public void forEachSuccessor(int source, IntConsumer action) {
+        assertContains(source);
+        adjacency.forEachSuccessor(source, isComplete() ? null : alive, action);
+    }
+
+    /**
+     * Returns an iterator over the predecessors of a given node.
+     *
+     * @param source The source node.
+     * @return An iterator over the predecessors of source node.
+     * @throws NoSuchElementException if source is not on this graph.
+     */
+    public Iterator<ID> predecessors(ID source) {
+        return new NodeIterator<>(identifiers, predecessors(checkedIndexOf(source)));
+    }
+
+    /**
+     * Returns an iterator over the indexes of the predecessors of a given
+     * node, in ascending order.
+     *
+     * @param target The index of the target node.
+     * @return An iterator over the indexes of the predecessors of target node.
+     * @throws NoSuchElementException if target is not on this graph.
+     */
+    public PrimitiveIterator.OfInt predecessors(int target) {
+        assertContains(target);
+        return new IndexIterator(adjacency.predecessors(target), alive::get);
+    }
+
+    /**
+     * Returns a new cursor over the indexes of the predecessors of nodes. A
+     * cursor can be reset to different nodes, skips nodes not in this graph,
+     * and allocates nothing while walking the graph.
+     *
+     * @return A cursor over the predecessors of nodes.
+     */
+    public IntCursor predecessorCursor() {
+        return new AliveCursor(adjacency.predecessorCursor(), alive);
+    }
+
+    /**
+     * Invokes an action with the index of each predecessor of a given node,
+     * in ascending order.
+     *
+     * @param target The index of the target node.
+     * @param action The action.
+     * @throws NoSuchElementException if target is not on this graph.
+     */
+    public void forEachPredecessor(int target, IntConsumer action) {
+        assertContains(target);
+        adjacency.forEachPredecessor(target, isComplete() ? null : alive, action);
+    }
+
+    /**
+     * Returns true if this graph has all the nodes in the adjacency matrix,
+     * so neighbors do not need to be checked.
+     */
+    final boolean isComplete() {
+        return getOrder() == adjacency.size();
+    }
+
+    /**
+     * Returns an iterator over the sinks (nodes with no successors) of the
+     * graph.
+     *
+     * @return An iterator over the sinks (nodes with no successors) of the
+     * graph.
+     */
+    public Iterator<ID> sinks() {
+        return new NodeIterator<>(identifiers,
+                new IndexIterator(nodeIndexes(), NodePredicate.sinkPredicate(outDegree)));
+    }
+
+    /**
+     * Returns an iterator over the sources (nodes with no predecessors) of the
+     * graph.
+     *
+     * @return an iterator over the sources (nodes with no predecessors) of the
+     * graph.
+     */
+    public Iterator<ID> sources() {
+        return new NodeIterator<>(identifiers,
+                new IndexIterator(nodeIndexes(), NodePredicate.sourcePredicate(inDegree)));
+    }
+
+    /**
+     * Returns true if nodes A and B are connected
+     *
+     * @param A the source node.
+     * @param B the target node.
+     * @return True if there is an edge from A to B
+     * @throws NoSuchElementException if A or B are not on this graph.
+     */
+    public boolean connects(ID A, ID B) {
+        int iA = checkedIndexOf(A);
+        int iB = checkedIndexOf(B);
+        return adjacency.connects(iA, iB);
+    }
+
+    /**
+     * Returns true if the nodes with indexes A and B are connected
+     *
+     * @param A the index of the source node.
+     * @param B the index of the target node.
+     * @return True if there is an edge from A to B
+     * @throws NoSuchElementException if A or B are not on this graph.
+     */
+    public boolean connects(int A, int B) {
+        assertContains(A);
+        assertContains(B);
+        return adjacency.connects(A, B);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * The storage of the edges of a directed graph. Nodes are identified by their
+ * index, from 0 (inclusive) to size() (exclusive).
+ */
+interface Adjacency {
+
+    /**
+     * Returns the number of nodes (rows and columns) in this adjacency.
+     *
+     * @return The number of nodes.
+     */
+    int size();
+
+    /**
+     * Returns true if there is an edge from source to target.
+     *
+     * @param source The index of the source node.
+     * @param target The index of the target node.
+     * @return true if there is an edge from source to target.
+     */
+    boolean connects(int source, int target);
+
+    /**
+     * Returns an iterator over the indexes of the successors of a node, in
+     * ascending order.
+     *
+     * @param source The index of the source node.
+     * @return An iterator over the indexes of the successors of source.
+     */
+    PrimitiveIterator.OfInt successors(int source);
+
+    /**
+     * Returns an iterator over the indexes of the predecessors of a node, in
+     * ascending order.
+     *
+     * @param target The index of the target node.
+     * @return An iterator over the indexes of the predecessors of target.
+     */
+    PrimitiveIterator.OfInt predecessors(int target);
+
+    /**
+     * Returns a new cursor over the indexes of successors of nodes.
+     *
+     * @return A cursor over successors.
+     */
+    IntCursor successorCursor();
+
+    /**
+     * Returns a new cursor over the indexes of predecessors of nodes.
+     *
+     * @return A cursor over predecessors.
+     */
+    IntCursor predecessorCursor();
+
+    /**
+     * Invokes an action with the index of each successor of a node, in
+     * ascending order. The filter is checked inline, so subgraphs do not need
+     * to wrap the action.
+     *
+     * @param source The index of the source node.
+     * @param alive The successors to visit, or null to visit all of them.
+     * @param action The action.
+     */
+    void forEachSuccessor(int source, BitSet alive, IntConsumer action);
+
+    /**
+     * Invokes an action with the index of each predecessor of a node, in
+     * ascending order. The filter is checked inline, so subgraphs do not need
+     * to wrap the action.
+     *
+     * @param target The index of the target node.
+     * @param alive The predecessors to visit, or null to visit all of them.
+     * @param action The action.
+     */
+    void forEachPredecessor(int target, BitSet alive, IntConsumer action);
+
+}
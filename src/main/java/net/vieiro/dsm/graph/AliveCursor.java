@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/**
+ * A cursor that skips the neighbors that are not in a (sub)graph.
+ */
+final class AliveCursor implements IntCursor {
+
+    private final IntCursor cursor;
+    private final BitSet alive;
+
+    AliveCursor(IntCursor cursor, BitSet alive) {
+        this.cursor = cursor;
+        this.alive = alive;
+    }
+
+    @Override
+    public void reset(int node) {
+        if (node < 0 || !alive.get(node)) {
+            throw new NoSuchElementException(
+                    String.format("This graph does not contain a node with index %d", node));
+        }
+        cursor.reset(node);
+    }
+
+    @Override
+    public void reset(int node, int from) {
+        reset(node);
+        cursor.reset(node, from);
+    }
+
+    @Override
+    public int next() {
+        int next;
+        do {
+            next = cursor.next();
+        } while (next != END && !alive.get(next));
+        return next;
+    }
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * An adjacency matrix packed in bits, one bit per edge, 64 edges per word.
+ * This uses one eighth of the memory of a boolean[][] matrix.
+ */
+final class BitMatrixAdjacency implements Adjacency {
+
+    /**
+     * The number of nodes.
+     */
+    private final int size;
+    /**
+     * One row of words per source node. Bit (target % 64) of word (target /
+     * 64) is set if there is an edge from source to target.
+     */
+    private final long[][] rows;
+
+    /**
+     * Creates an empty (no edges) adjacency matrix.
+     *
+     * @param size The number of nodes.
+     */
+    BitMatrixAdjacency(int size) {
+        this.size = size;
+        this.rows = new long[size][(size + 63) >>> 6];
+    }
+
+    /**
+     * Adds an edge from source to target.
+     *
+     * @param source The index of the source node.
+     * @param target The index of the target node.
+     */
+    void connect(int source, int target) {
+        rows[source][target >>> 6] |= 1L << target;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean connects(int source, int target) {
+        return (rows[source][target >>> 6] & (1L << target)) != 0;
+    }
+
+    /**
+     * Returns the first successor of source at or after the given index.
+     *
+     * @param source The index of the source node.
+     * @param from The first index to consider.
+     * @return The index of the successor, or -1 if there are no more.
+     */
+    int nextSuccessor(int source, int from) {
+        if (from >= size) {
+            return -1;
+        }
+        long[] row = rows[source];
+        int wordIndex = from >>> 6;
+        long word = row[wordIndex] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == row.length) {
+                return -1;
+            }
+            word = row[wordIndex];
+        }
+    }
+
+    /**
+     * Returns the first predecessor of target at or after the given index.
+     *
+     * @param target The index of the target node.
+     * @param from The first index to consider.
+     * @return The index of the predecessor, or -1 if there are no more.
+     */
+    int nextPredecessor(int target, int from) {
+        int wordIndex = target >>> 6;
+        long mask = 1L << target;
+        for (int source = from; source < size; source++) {
+            if ((rows[source][wordIndex] & mask) != 0) {
+                return source;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt successors(int source) {
+        return new BitIterator(source, true);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt predecessors(int target) {
+        return new BitIterator(target, false);
+    }
+
+    @Override
+    public IntCursor successorCursor() {
+        return new SuccessorCursor();
+    }
+
+    @Override
+    public IntCursor predecessorCursor() {
+        return new PredecessorCursor();
+    }
+
+    @Override
+    public void forEachSuccessor(int source, BitSet alive, IntConsumer action) {
+        long[] row = rows[source];
+        for (int wordIndex = 0; wordIndex < row.length; wordIndex++) {
+            for (long word = row[wordIndex]; word != 0; word &= word - 1) {
+                int target = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                if (alive == null || alive.get(target)) {
+                    action.accept(target);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(int target, BitSet alive, IntConsumer action) {
+        int wordIndex = target >>> 6;
+        long mask = 1L << target;
+        for (int source = 0; source < size; source++) {
+            if ((rows[source][wordIndex] & mask) != 0 && (alive == null || alive.get(source))) {
+                action.accept(source);
+            }
+        }
+    }
+
+    /**
+     * Walks the set bits of a row, one word at a time.
+     */
+    private final class SuccessorCursor implements IntCursor {
+
+        private long[] row;
+        private int wordIndex;
+        private long word;
+
+        SuccessorCursor() {
+            this.row = new long[0];
+        }
+
+        @Override
+        public void reset(int node) {
+            row = rows[node];
+            wordIndex = 0;
+            word = row.length == 0 ? 0 : row[0];
+        }
+
+        @Override
+        public void reset(int node, int from) {
+            row = rows[node];
+            wordIndex = from >>> 6;
+            // Shifts take the bit index modulo 64, masking the bits before from
+            word = wordIndex < row.length ? row[wordIndex] & (-1L << from) : 0;
+        }
+
+        @Override
+        public int next() {
+            while (word == 0) {
+                if (++wordIndex >= row.length) {
+                    return END;
+                }
+                word = row[wordIndex];
+            }
+            int next = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return next;
+        }
+
+    }
+
+    /**
+     * Walks a column, testing one bit per row.
+     */
+    private final class PredecessorCursor implements IntCursor {
+
+        private int wordIndex;
+        private long mask;
+        private int source;
+
+        PredecessorCursor() {
+            this.source = size;
+        }
+
+        @Override
+        public void reset(int node) {
+            wordIndex = node >>> 6;
+            mask = 1L << node;
+            source = 0;
+        }
+
+        @Override
+        public void reset(int node, int from) {
+            reset(node);
+            source = from;
+        }
+
+        @Override
+        public int next() {
+            while (source < size) {
+                if ((rows[source++][wordIndex] & mask) != 0) {
+                    return source - 1;
+                }
+            }
+            return END;
+        }
+
+    }
+
+    private final class BitIterator implements PrimitiveIterator.OfInt {
+
+        private final int node;
+        private final boolean forward;
+        private int next;
+
+        BitIterator(int node, boolean forward) {
+            this.node = node;
+            this.forward = forward;
+            this.next = advance(0);
+        }
+
+        private int advance(int from) {
+            return forward ? nextSuccessor(node, from) : nextPredecessor(node, from);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != -1;
+        }
+
+        @Override
+        public int nextInt() {
+            if (next == -1) {
+                throw new NoSuchElementException("This iterator has no more elements");
+            }
+            int current = next;
+            next = advance(current + 1);
+            return current;
+        }
+
+    }
+
+}
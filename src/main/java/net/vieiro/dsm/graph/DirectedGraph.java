@@ -16,139 +16,65 @@
 package net.vieiro.dsm.graph;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.Objects;
-import java.util.Set;
 
 /**
  * DirectedGraph represents a directed graph. Use DirectedGraphBuilder to build
  * one of these.
  *
+ * Each node has an index in the adjacency matrix, from 0 (inclusive) to
+ * getIndexCapacity() (exclusive). Algorithms may use the int methods (indexOf,
+ * nodeAt, successors(int)...) to work with indexes and avoid hashing nodes.
+ * Subgraphs share indexes with the graph they come from, so some indexes may
+ * not be in a subgraph.
+ *
  * @param <ID> The equals/hashcode identifier for nodes.
  */
-public class DirectedGraph<ID> {
+public class DirectedGraph<ID> extends AbstractDirectedGraph<ID> {
 
     /**
-     * The adjacency matrix
-     */
-    final boolean adjacencyMatrix[][];
-    /**
-     * A map from nodes to indexes in the adjacency matrix
+     * The number of nodes in this graph.
      */
-    final Map<ID, Integer> indexes;
-    /**
-     * The set of nodes in this graph. This may be smaller than the adjacency
-     * matrix size. This happens in subgraphs, for instance, where only a subset
-     * of the original graph are used.
-     */
-    final Set<ID> nodes;
-
-    DirectedGraph(Set<ID> nodes, Map<ID, Integer> indexes, boolean[][] adjacencyMatrix) {
-        this.adjacencyMatrix = adjacencyMatrix;
-        this.indexes = Collections.<ID, Integer>unmodifiableMap(indexes);
-        this.nodes = Collections.unmodifiableSet(nodes);
-    }
-
-    protected void assertContains(ID node) {
-        if (!nodes.contains(node)) {
-            throw new NoSuchElementException(
-                    String.format("This graph does not contain node %s", Objects.toString(node)));
-        }
-    }
+    private final int order;
 
     /**
-     * Returns the order (number of nodes) of the digraph.
-     *
-     * @return The number of nodes of the digraph.
-     */
-    public int getOrder() {
-        return nodes.size();
-    }
-
-    /**
-     * Returns the in-degree (at index 0) and out-degree (at index 1) of the
-     * given node, this is, the number of incident edges (in-degree) and
-     * outward-directed edges (out-degree).
-     *
-     * @param node The node.
-     * @return An array of two integers, the first (0) is the in-degree, the
-     * second (1) is the out-degree
+     * Builds a graph with all the nodes in the adjacency matrix.
      */
-    public int[] getInAndOutDegrees(ID node) {
-        assertContains(node);
-        int i = indexes.get(node);
-        int inDegree = 0;
-        int outDegree = 0;
-        for (ID source : nodes) {
-            int j = indexes.get(source);
-            if (adjacencyMatrix[j][i]) {
-                inDegree++;
-            }
-            if (adjacencyMatrix[i][j]) {
-                outDegree++;
+    DirectedGraph(Map<ID, Integer> indexes, ID[] identifiers, Adjacency adjacency) {
+        this(Collections.<ID, Integer>unmodifiableMap(indexes), identifiers, adjacency,
+                allNodes(adjacency.size()), new int[adjacency.size()], new int[adjacency.size()]);
+        IntCursor targets = adjacency.successorCursor();
+        for (int source = 0; source < adjacency.size(); source++) {
+            targets.reset(source);
+            for (int target = targets.next(); target != IntCursor.END; target = targets.next()) {
+                inDegree[target]++;
+                outDegree[source]++;
             }
         }
-        return new int[]{inDegree, outDegree};
-    }
-
-    /**
-     * Returns the nodes in this graph.
-     *
-     * @return The list of nodes.
-     */
-    public Set<ID> nodes() {
-        return nodes;
     }
 
-    /**
-     * Returns an iterator over the successors of a given node.
-     *
-     * @param source The source node.
-     * @return An iterator over the successors of source node.
-     * @throws NoSuchElementException if source is not on this graph.
-     */
-    public Iterator<ID> successors(ID source) {
-        assertContains(source);
-        return new NodeIterator<>(this, NodeNodePredicate.sucessorPredicate(this, source));
+    DirectedGraph(Map<ID, Integer> indexes, ID[] identifiers, Adjacency adjacency,
+            BitSet alive, int[] inDegree, int[] outDegree) {
+        super(indexes, identifiers, adjacency, alive, inDegree, outDegree);
+        this.order = alive.cardinality();
     }
 
-    /**
-     * Returns an iterator over the predecessors of a given node.
-     *
-     * @param source The source node.
-     * @return An iterator over the predecessors of source node.
-     * @throws NoSuchElementException if source is not on this graph.
-     */
-    public Iterator<ID> predecessors(ID source) {
-        assertContains(source);
-        return new NodeIterator<>(this, NodeNodePredicate.predecessorPredicate(this, source));
+    private static BitSet allNodes(int size) {
+        BitSet all = new BitSet(size);
+        all.set(0, size);
+        return all;
     }
 
-    /**
-     * Returns an iterator over the sinks (nodes with no successors) of the
-     * graph.
-     *
-     * @return An iterator over the sinks (nodes with no successors) of the
-     * graph.
-     */
-    public Iterator<ID> sinks() {
-        return new NodeIterator<>(this, NodePredicate.sinkPredicate(this));
+    protected void assertContains(ID node) {
+        checkedIndexOf(node);
     }
 
-    /**
-     * Returns an iterator over the sources (nodes with no predecessors) of the
-     * graph.
-     *
-     * @return an iterator over the sources (nodes with no predecessors) of the
-     * graph.
-     */
-    public Iterator<ID> sources() {
-        return new NodeIterator<>(this, NodePredicate.sourcePredicate(this));
+    @Override
+    public int getOrder() {
+        return order;
     }
 
     /**
@@ -178,25 +104,40 @@ public class DirectedGraph<ID> {
      * @return A digraph where all nodes (and edges) are removed.
      */
     public DirectedGraph<ID> remove(Collection<ID> ids) {
-        Set<ID> remainingIDs = new HashSet<>(this.nodes);
-        remainingIDs.removeAll(ids);
-        return new DirectedGraph<>(remainingIDs, indexes, adjacencyMatrix);
+        BitSet remaining = (BitSet) alive.clone();
+        int[] remainingInDegree = inDegree.clone();
+        int[] remainingOutDegree = outDegree.clone();
+        IntCursor targets = adjacency.successorCursor();
+        IntCursor sources = adjacency.predecessorCursor();
+        for (ID id : ids) {
+            Integer index = indexes.get(id);
+            if (index == null || !remaining.get(index)) {
+                continue;
+            }
+            int i = index;
+            remaining.clear(i);
+            targets.reset(i);
+            for (int target = targets.next(); target != IntCursor.END; target = targets.next()) {
+                remainingInDegree[target]--;
+            }
+            sources.reset(i);
+            for (int source = sources.next(); source != IntCursor.END; source = sources.next()) {
+                remainingOutDegree[source]--;
+            }
+        }
+        return new DirectedGraph<>(indexes, identifiers, adjacency,
+                remaining, remainingInDegree, remainingOutDegree);
     }
 
     /**
-     * Returns true if nodes A and B are connected
+     * Returns a mutable copy of this graph, where nodes can be removed in
+     * place without creating new graphs. The copy shares the adjacency matrix
+     * with this graph.
      *
-     * @param A the source node.
-     * @param B the target node.
-     * @return True if there is an edge from A to B
-     * @throws NoSuchElementException if A or B are not on this graph.
+     * @return A mutable copy of this graph.
      */
-    public boolean connects(ID A, ID B) {
-        assertContains(A);
-        assertContains(B);
-        int iA = indexes.get(A);
-        int iB = indexes.get(B);
-        return adjacencyMatrix[iA][iB];
+    public MutableDirectedGraph<ID> workspace() {
+        return new MutableDirectedGraph<>(this);
     }
 
 }
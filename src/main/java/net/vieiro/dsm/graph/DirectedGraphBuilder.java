@@ -15,20 +15,46 @@
  */
 package net.vieiro.dsm.graph;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
- * Builds a directed graph.
+ * Builds a directed graph. Builders created with {@link #concurrent()} accept
+ * calls to {@link #connect(Object, Object)} and {@link #merge(DirectedGraphBuilder)}
+ * from several threads at once; builders created with the constructor must be
+ * confined to a single thread.
  *
  * @param <ID> The type of equal/hashcode used to identify nodes.
  */
 public class DirectedGraphBuilder<ID> {
 
-    private final HashMap<ID, Set<ID>> edges;
-    private final HashSet<ID> nodes;
+    /**
+     * Graphs with a density (edges / nodes^2) below this threshold are built
+     * with a sparse adjacency. Below 1/64 a sparse adjacency (two int per edge
+     * and per node) takes less memory than a bit matrix (one bit per pair of
+     * nodes).
+     */
+    static final double SPARSE_DENSITY_THRESHOLD = 1.0 / 64;
+
+    /**
+     * The initial capacity of the set of successors of each node, unless a
+     * hint is given.
+     */
+    private static final int DEFAULT_SUCCESSOR_CAPACITY = 4;
+
+    private final Map<ID, Set<ID>> edges;
+    private final Set<ID> nodes;
+    private final boolean concurrent;
+    private final int successorCapacity;
+    /**
+     * The edges of compact builders, null otherwise.
+     */
+    private final EdgeBuffer<ID> buffer;
 
     /**
      * Creates a new DirectedGraphBuilder:
@@ -36,6 +62,106 @@ public class DirectedGraphBuilder<ID> {
     public DirectedGraphBuilder() {
         nodes = new HashSet<>();
         edges = new HashMap<>();
+        concurrent = false;
+        successorCapacity = DEFAULT_SUCCESSOR_CAPACITY;
+        buffer = null;
+    }
+
+    /**
+     * Creates a new DirectedGraphBuilder sized for the expected number of
+     * nodes and edges, so that no rehashing happens while it is filled.
+     *
+     * @param expectedNodes The expected number of nodes.
+     * @param expectedEdges The expected number of edges.
+     * @throws IllegalArgumentException if any of the hints is negative.
+     */
+    public DirectedGraphBuilder(int expectedNodes, int expectedEdges) {
+        checkHints(expectedNodes, expectedEdges);
+        nodes = new HashSet<>(capacity(expectedNodes));
+        edges = new HashMap<>(capacity(expectedNodes));
+        concurrent = false;
+        successorCapacity = expectedNodes == 0
+                ? DEFAULT_SUCCESSOR_CAPACITY
+                : Math.max(DEFAULT_SUCCESSOR_CAPACITY, capacity(expectedEdges / expectedNodes));
+        buffer = null;
+    }
+
+    private DirectedGraphBuilder(boolean concurrent, EdgeBuffer<ID> buffer) {
+        this.concurrent = concurrent;
+        this.successorCapacity = DEFAULT_SUCCESSOR_CAPACITY;
+        this.buffer = buffer;
+        if (concurrent) {
+            nodes = ConcurrentHashMap.newKeySet();
+            edges = new ConcurrentHashMap<>();
+        } else {
+            nodes = new HashSet<>(0);
+            edges = new HashMap<>(0);
+        }
+    }
+
+    /**
+     * Creates a DirectedGraphBuilder that can be filled from several threads at
+     * once. {@link #build()} must be invoked once all threads are done.
+     *
+     * @param <ID> The type of nodes.
+     * @return A new, thread safe, DirectedGraphBuilder.
+     */
+    public static <ID> DirectedGraphBuilder<ID> concurrent() {
+        return new DirectedGraphBuilder<>(true, null);
+    }
+
+    /**
+     * Creates a DirectedGraphBuilder that stores edges as pairs of int in a
+     * flat buffer, and builds the final adjacency straight from it. This uses
+     * much less memory than the default builder on big graphs. Nodes in the
+     * resulting graph are indexed in the order they were first connected.
+     *
+     * @param <ID> The type of nodes.
+     * @param expectedNodes The expected number of nodes.
+     * @param expectedEdges The expected number of edges.
+     * @return A new, compact, DirectedGraphBuilder.
+     * @throws IllegalArgumentException if any of the hints is negative.
+     */
+    public static <ID> DirectedGraphBuilder<ID> compact(int expectedNodes, int expectedEdges) {
+        checkHints(expectedNodes, expectedEdges);
+        return new DirectedGraphBuilder<>(false, new EdgeBuffer<>(expectedNodes, expectedEdges));
+    }
+
+    private static void checkHints(int expectedNodes, int expectedEdges) {
+        if (expectedNodes < 0 || expectedEdges < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid capacity hints: %d nodes, %d edges", expectedNodes, expectedEdges));
+        }
+    }
+
+    /**
+     * Computes the initial capacity of a hash map that holds the given number
+     * of entries without rehashing.
+     *
+     * @param expected The expected number of entries.
+     * @return The initial capacity.
+     */
+    static int capacity(int expected) {
+        return (int) Math.min(1 << 30, expected / 0.75 + 1);
+    }
+
+    /**
+     * Checks if this builder can be filled from several threads at once.
+     *
+     * @return true if this builder was created with {@link #concurrent()}.
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * Checks if this builder stores edges in a compact buffer.
+     *
+     * @return true if this builder was created with
+     * {@link #compact(int, int)}.
+     */
+    public boolean isCompact() {
+        return buffer != null;
     }
 
     /**
@@ -47,40 +173,167 @@ public class DirectedGraphBuilder<ID> {
      * @return this.
      */
     public DirectedGraphBuilder<ID> connect(ID source, ID target) {
+        if (buffer != null) {
+            buffer.connect(source, target);
+            return this;
+        }
         nodes.add(source);
         nodes.add(target);
+        successorsOf(source).add(target);
+        return this;
+    }
+
+    private Set<ID> successorsOf(ID source) {
+        if (concurrent) {
+            return edges.computeIfAbsent(source, s -> ConcurrentHashMap.newKeySet());
+        }
         Set<ID> successors = edges.get(source);
         if (successors == null) {
-            successors = new HashSet<>(nodes.size());
+            successors = new HashSet<>(successorCapacity);
             edges.put(source, successors);
         }
-        successors.add(target);
+        return successors;
+    }
+
+    /**
+     * Adds all the nodes and edges of another builder to this one. The other
+     * builder may be of a different kind (concurrent or not), but must not be
+     * modified while it is being merged.
+     *
+     * @param other The other builder.
+     * @return this.
+     */
+    public DirectedGraphBuilder<ID> merge(DirectedGraphBuilder<ID> other) {
+        if (other == this) {
+            return this;
+        }
+        if (buffer != null || other.buffer != null) {
+            other.forEachEdge(this::connect);
+            return this;
+        }
+        nodes.addAll(other.nodes);
+        for (Map.Entry<ID, Set<ID>> edgesFromSource : other.edges.entrySet()) {
+            successorsOf(edgesFromSource.getKey()).addAll(edgesFromSource.getValue());
+        }
         return this;
     }
 
+    private void forEachEdge(BiConsumer<ID, ID> action) {
+        if (buffer != null) {
+            buffer.forEachEdge(action);
+            return;
+        }
+        for (Map.Entry<ID, Set<ID>> edgesFromSource : edges.entrySet()) {
+            for (ID target : edgesFromSource.getValue()) {
+                action.accept(edgesFromSource.getKey(), target);
+            }
+        }
+    }
+
     /**
-     * Builds a directed graph.
+     * Builds a directed graph. Sparse graphs are stored in compressed rows and
+     * columns, dense graphs are stored in a bit matrix.
      *
      * @return The directed graph.
      */
     public DirectedGraph<ID> build() {
+        if (buffer != null) {
+            return buffer.build();
+        }
+        long numberOfNodes = nodes.size();
+        long numberOfEdges = 0;
+        for (Set<ID> targets : edges.values()) {
+            numberOfEdges += targets.size();
+        }
+        boolean sparse = numberOfEdges < SPARSE_DENSITY_THRESHOLD * numberOfNodes * numberOfNodes;
+        return build(sparse);
+    }
+
+    /**
+     * Builds a directed graph with the given representation.
+     *
+     * @param sparse true to build a sparse adjacency, false to build a bit
+     * matrix.
+     * @return The directed graph.
+     */
+    DirectedGraph<ID> build(boolean sparse) {
+        if (buffer != null) {
+            return buffer.build(sparse);
+        }
         int numberOfNodes = nodes.size();
-        boolean[][] adjacencyMatrix = new boolean[numberOfNodes][numberOfNodes];
-        HashMap<ID, Integer> ordering = new HashMap<>();
+        HashMap<ID, Integer> ordering = new HashMap<>(capacity(numberOfNodes));
+        @SuppressWarnings("unchecked")
+        ID[] identifiers = (ID[]) new Object[numberOfNodes];
         int nextNodeIndex = 0;
         for (ID node : nodes) {
+            identifiers[nextNodeIndex] = node;
             ordering.put(node, nextNodeIndex++);
         }
+        Adjacency adjacency = sparse
+                ? buildSparseAdjacency(identifiers, ordering)
+                : buildBitMatrixAdjacency(ordering);
+        return new DirectedGraph<>(ordering, identifiers, adjacency);
+    }
+
+    /**
+     * Builds an adjacency from its compressed rows, choosing the
+     * representation by density.
+     *
+     * @param targetOffsets The offsets of each row in targets, of length
+     * size+1.
+     * @param targets The targets of each row, sorted in ascending order within
+     * each row and without duplicates.
+     * @return The adjacency.
+     */
+    static Adjacency adjacency(int[] targetOffsets, int[] targets) {
+        int numberOfNodes = targetOffsets.length - 1;
+        long n = numberOfNodes;
+        if (targetOffsets[numberOfNodes] < SPARSE_DENSITY_THRESHOLD * n * n) {
+            return new SparseAdjacency(targetOffsets, targets);
+        }
+        BitMatrixAdjacency adjacency = new BitMatrixAdjacency(numberOfNodes);
+        for (int source = 0; source < numberOfNodes; source++) {
+            for (int i = targetOffsets[source]; i < targetOffsets[source + 1]; i++) {
+                adjacency.connect(source, targets[i]);
+            }
+        }
+        return adjacency;
+    }
+
+    private Adjacency buildBitMatrixAdjacency(Map<ID, Integer> ordering) {
+        BitMatrixAdjacency adjacency = new BitMatrixAdjacency(ordering.size());
         for (Map.Entry<ID, Set<ID>> edgesFromSource : edges.entrySet()) {
             ID source = edgesFromSource.getKey();
             int sourceIndex = ordering.get(source);
             Set<ID> targets = edgesFromSource.getValue();
             for (ID target : targets) {
                 int targetIndex = ordering.get(target);
-                adjacencyMatrix[sourceIndex][targetIndex] = true;
+                adjacency.connect(sourceIndex, targetIndex);
+            }
+        }
+        return adjacency;
+    }
+
+    private Adjacency buildSparseAdjacency(ID[] identifiers, Map<ID, Integer> ordering) {
+        int numberOfNodes = identifiers.length;
+        int[] targetOffsets = new int[numberOfNodes + 1];
+        for (int i = 0; i < numberOfNodes; i++) {
+            Set<ID> targets = edges.get(identifiers[i]);
+            targetOffsets[i + 1] = targetOffsets[i] + (targets == null ? 0 : targets.size());
+        }
+        int[] targetIndexes = new int[targetOffsets[numberOfNodes]];
+        for (int i = 0; i < numberOfNodes; i++) {
+            Set<ID> targets = edges.get(identifiers[i]);
+            if (targets == null) {
+                continue;
+            }
+            int position = targetOffsets[i];
+            for (ID target : targets) {
+                targetIndexes[position++] = ordering.get(target);
             }
+            Arrays.sort(targetIndexes, targetOffsets[i], position);
         }
-        return new DirectedGraph<>(ordering.keySet(), ordering, adjacencyMatrix);
+        return new SparseAdjacency(targetOffsets, targetIndexes);
     }
 
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Stores edges as pairs of node indexes in a flat int array, in the order they
+ * are added. Duplicated edges are stored as well, and removed when the graph
+ * is built. This takes two int per edge and a single map entry per node, and
+ * is turned into the final adjacency in two passes over the pairs, without
+ * any intermediate per-node sets.
+ *
+ * @param <ID> The type of nodes.
+ */
+final class EdgeBuffer<ID> {
+
+    private static final int MAXIMUM_LENGTH = Integer.MAX_VALUE - 8;
+
+    private Map<ID, Integer> indexes;
+    /**
+     * true if indexes is in use by a graph, and must be copied before being
+     * modified.
+     */
+    private boolean shared;
+    private ID[] identifiers;
+    private int numberOfNodes;
+    /**
+     * Edge i goes from pairs[2*i] to pairs[2*i+1].
+     */
+    private int[] pairs;
+    private int numberOfPairs;
+
+    @SuppressWarnings("unchecked")
+    EdgeBuffer(int expectedNodes, int expectedEdges) {
+        this.indexes = new HashMap<>(DirectedGraphBuilder.capacity(expectedNodes));
+        this.identifiers = (ID[]) new Object[Math.max(expectedNodes, 16)];
+        this.pairs = new int[2 * Math.max(expectedEdges, 16)];
+    }
+
+    int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    int getNumberOfPairs() {
+        return numberOfPairs;
+    }
+
+    void connect(ID source, ID target) {
+        int sourceIndex = intern(source);
+        int targetIndex = intern(target);
+        if (2 * numberOfPairs == pairs.length) {
+            pairs = Arrays.copyOf(pairs, 2 * grow(numberOfPairs, MAXIMUM_LENGTH / 2));
+        }
+        pairs[2 * numberOfPairs] = sourceIndex;
+        pairs[2 * numberOfPairs + 1] = targetIndex;
+        numberOfPairs++;
+    }
+
+    private int intern(ID node) {
+        Integer index = indexes.get(node);
+        if (index != null) {
+            return index;
+        }
+        if (shared) {
+            indexes = new HashMap<>(indexes);
+            shared = false;
+        }
+        if (numberOfNodes == identifiers.length) {
+            identifiers = Arrays.copyOf(identifiers, grow(identifiers.length, MAXIMUM_LENGTH));
+        }
+        identifiers[numberOfNodes] = node;
+        indexes.put(node, numberOfNodes);
+        return numberOfNodes++;
+    }
+
+    private static int grow(int length, int maximumLength) {
+        if (length >= maximumLength) {
+            throw new OutOfMemoryError("Too many nodes or edges");
+        }
+        return (int) Math.min(maximumLength, length + (length >> 1) + 2L);
+    }
+
+    /**
+     * Visits all the edges in this buffer, duplicates included.
+     *
+     * @param action The action to invoke with the source and target of each
+     * edge.
+     */
+    void forEachEdge(BiConsumer<ID, ID> action) {
+        for (int i = 0; i < numberOfPairs; i++) {
+            action.accept(identifiers[pairs[2 * i]], identifiers[pairs[2 * i + 1]]);
+        }
+    }
+
+    /**
+     * Builds a directed graph, choosing the representation by density.
+     *
+     * @return The directed graph.
+     */
+    DirectedGraph<ID> build() {
+        int[] targetOffsets = new int[numberOfNodes + 1];
+        int[] targets = compressedRows(targetOffsets);
+        return graph(DirectedGraphBuilder.adjacency(targetOffsets, targets));
+    }
+
+    /**
+     * Builds a directed graph with the given representation.
+     *
+     * @param sparse true to build a sparse adjacency, false to build a bit
+     * matrix.
+     * @return The directed graph.
+     */
+    DirectedGraph<ID> build(boolean sparse) {
+        if (sparse) {
+            int[] targetOffsets = new int[numberOfNodes + 1];
+            int[] targets = compressedRows(targetOffsets);
+            return graph(new SparseAdjacency(targetOffsets, targets));
+        }
+        BitMatrixAdjacency adjacency = new BitMatrixAdjacency(numberOfNodes);
+        for (int i = 0; i < numberOfPairs; i++) {
+            adjacency.connect(pairs[2 * i], pairs[2 * i + 1]);
+        }
+        return graph(adjacency);
+    }
+
+    private DirectedGraph<ID> graph(Adjacency adjacency) {
+        shared = true;
+        return new DirectedGraph<>(indexes, Arrays.copyOf(identifiers, numberOfNodes), adjacency);
+    }
+
+    /**
+     * Turns the pairs into compressed rows: a first pass counts the out-degree
+     * of each node, a second pass places each target in its row. Rows are then
+     * sorted and deduplicated in place.
+     *
+     * @param targetOffsets The offsets of each row, of length numberOfNodes+1,
+     * filled by this method.
+     * @return The targets of each row.
+     */
+    private int[] compressedRows(int[] targetOffsets) {
+        for (int i = 0; i < numberOfPairs; i++) {
+            targetOffsets[pairs[2 * i] + 1]++;
+        }
+        for (int i = 0; i < numberOfNodes; i++) {
+            targetOffsets[i + 1] += targetOffsets[i];
+        }
+        int[] targets = new int[numberOfPairs];
+        int[] next = Arrays.copyOf(targetOffsets, numberOfNodes);
+        for (int i = 0; i < numberOfPairs; i++) {
+            targets[next[pairs[2 * i]]++] = pairs[2 * i + 1];
+        }
+        int position = 0;
+        for (int source = 0; source < numberOfNodes; source++) {
+            int start = targetOffsets[source];
+            int end = targetOffsets[source + 1];
+            Arrays.sort(targets, start, end);
+            targetOffsets[source] = position;
+            for (int i = start; i < end; i++) {
+                if (i == start || targets[i] != targets[i - 1]) {
+                    targets[position++] = targets[i];
+                }
+            }
+        }
+        targetOffsets[numberOfNodes] = position;
+        return position == targets.length ? targets : Arrays.copyOf(targets, position);
+    }
+
+}
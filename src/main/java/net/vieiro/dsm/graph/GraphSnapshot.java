@@ -0,0 +1,407 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Saves and loads graphs of String nodes in a compact binary format, so that
+ * the same graph can be reloaded without parsing it again. All numbers are
+ * big endian. The file contains:
+ * <ul>
+ * <li>A header: the magic number, the format version, the number of nodes,
+ * the number of edges, the size of the node names in bytes and the CRC32 of
+ * everything after the header.</li>
+ * <li>The offsets of each node name (number of nodes + 1 int).</li>
+ * <li>The edges, as compressed rows: the offsets of each row (number of nodes +
+ * 1 int) followed by the targets of each row (number of edges int), sorted in
+ * ascending order.</li>
+ * <li>The edges again, as compressed columns: the offsets of each column
+ * followed by the sources of each column, sorted in ascending order.</li>
+ * <li>All the node names, encoded in UTF-8.</li>
+ * </ul>
+ * Snapshots are loaded by memory-mapping the file. The edges are used in
+ * place, without copying them to the heap, and degrees are taken from the
+ * offsets. Node names are decoded into strings when loading, but the map from
+ * names to indexes is only built the first time a node is looked up by name.
+ * The checksum and the structure of the edges are only verified on request,
+ * see {@link #load(Path, boolean)}.
+ */
+public final class GraphSnapshot {
+
+    /**
+     * The first four bytes of a snapshot, 0x89 followed by "DSM". As in PNG
+     * files, the first byte cannot start an ASCII or UTF-8 text file, so edge
+     * lists are never taken for snapshots.
+     */
+    public static final int MAGIC = 0x8944534D;
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 2;
+    /**
+     * The usual extension of snapshot files.
+     */
+    public static final String EXTENSION = ".dsmg";
+
+    private static final int HEADER_SIZE = 32;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * Checks if a file is a snapshot, by looking at its magic number.
+     *
+     * @param file The file.
+     * @return true if the file starts with the snapshot magic number.
+     * @throws IOException on I/O errors.
+     */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) != -1) {
+                // Keep reading
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Saves a graph to a snapshot file. Only nodes in the graph are saved, so
+     * node indexes in the loaded graph may be different.
+     *
+     * @param graph The graph.
+     * @param file The file, overwritten if it exists.
+     * @throws IOException on I/O errors.
+     */
+    public static void save(DirectedGraph<String> graph, Path file) throws IOException {
+        int numberOfNodes = graph.getOrder();
+        int[] compactIndexes = new int[graph.getIndexCapacity()];
+        byte[][] names = new byte[numberOfNodes][];
+        int[] nameOffsets = new int[numberOfNodes + 1];
+        int[] targetOffsets = new int[numberOfNodes + 1];
+        int[] sourceOffsets = new int[numberOfNodes + 1];
+        int node = 0;
+        for (int index = graph.alive.nextSetBit(0); index >= 0; index = graph.alive.nextSetBit(index + 1)) {
+            compactIndexes[index] = node;
+            names[node] = graph.nodeAt(index).getBytes(StandardCharsets.UTF_8);
+            long nameOffset = (long) nameOffsets[node] + names[node].length;
+            long targetOffset = (long) targetOffsets[node] + graph.outDegree[index];
+            if (nameOffset > Integer.MAX_VALUE || targetOffset > Integer.MAX_VALUE / Integer.BYTES) {
+                throw new IOException("Graph too big to be saved in a snapshot");
+            }
+            nameOffsets[node + 1] = (int) nameOffset;
+            targetOffsets[node + 1] = (int) targetOffset;
+            sourceOffsets[node + 1] = sourceOffsets[node] + graph.inDegree[index];
+            node++;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // The header is written last, once the checksum is known
+            channel.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            putInts(channel, buffer, crc, nameOffsets);
+            putInts(channel, buffer, crc, targetOffsets);
+            putNeighbors(channel, buffer, crc, graph, graph.successorCursor(), compactIndexes);
+            putInts(channel, buffer, crc, sourceOffsets);
+            putNeighbors(channel, buffer, crc, graph, graph.predecessorCursor(), compactIndexes);
+            for (byte[] name : names) {
+                int written = 0;
+                while (written < name.length) {
+                    if (!buffer.hasRemaining()) {
+                        flush(channel, buffer, crc);
+                    }
+                    int length = Math.min(name.length - written, buffer.remaining());
+                    buffer.put(name, written, length);
+                    written += length;
+                }
+            }
+            flush(channel, buffer, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(numberOfNodes)
+                    .putInt(targetOffsets[numberOfNodes])
+                    .putLong(nameOffsets[numberOfNodes])
+                    .putInt((int) crc.getValue())
+                    .putInt(0);
+            ((Buffer) header).flip();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer buffer, CRC32 crc, int[] values) throws IOException {
+        for (int value : values) {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush(channel, buffer, crc);
+            }
+            buffer.putInt(value);
+        }
+    }
+
+    /**
+     * Writes the neighbors of each node in the graph, in compact indexes.
+     * Compact indexes keep the order of the graph indexes, so neighbors stay
+     * sorted.
+     */
+    private static void putNeighbors(FileChannel channel, ByteBuffer buffer, CRC32 crc,
+            DirectedGraph<String> graph, IntCursor neighbors, int[] compactIndexes) throws IOException {
+        for (int index = graph.alive.nextSetBit(0); index >= 0; index = graph.alive.nextSetBit(index + 1)) {
+            neighbors.reset(index);
+            for (int neighbor = neighbors.next(); neighbor != IntCursor.END; neighbor = neighbors.next()) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    flush(channel, buffer, crc);
+                }
+                buffer.putInt(compactIndexes[neighbor]);
+            }
+        }
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel, leaving the buffer
+     * empty.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        ((Buffer) buffer).flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ((Buffer) buffer).clear();
+    }
+
+    /**
+     * Loads a graph from a snapshot file, checking its header and size but not
+     * its checksum, see {@link #load(Path, boolean)}.
+     *
+     * @param file The file.
+     * @return The graph.
+     * @throws IOException on I/O errors, or if the file is not a snapshot.
+     */
+    public static DirectedGraph<String> load(Path file) throws IOException {
+        return load(file, false);
+    }
+
+    /**
+     * Loads a graph from a snapshot file. Loading takes O(nodes) time: the
+     * edges are read from the mapped file when used. Verifying the snapshot
+     * reads the whole file to compute its checksum and check its rows and
+     * columns, which takes O(nodes + edges) time.
+     *
+     * @param file The file.
+     * @param verify true to verify the checksum and the structure of the
+     * snapshot, so that corrupted files are rejected when loading instead of
+     * failing when used.
+     * @return The graph.
+     * @throws IOException on I/O errors, or if the file is not a valid
+     * snapshot.
+     */
+    public static DirectedGraph<String> load(Path file, boolean verify) throws IOException {
+        long size = Files.size(file);
+        if (size < HEADER_SIZE) {
+            throw new IOException(String.format("%s is not a graph snapshot", file));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(String.format("%s is not a graph snapshot", file));
+            }
+            int version = header.getInt(4);
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported snapshot version %d in %s", version, file));
+            }
+            int numberOfNodes = header.getInt(8);
+            int numberOfEdges = header.getInt(12);
+            long namesSize = header.getLong(16);
+            int expectedCrc = header.getInt(24);
+            long offsetsSize = 4L * (numberOfNodes + 1);
+            long edgesSize = 4L * numberOfEdges;
+            if (numberOfNodes < 0 || numberOfEdges < 0 || namesSize < 0
+                    || HEADER_SIZE + 3 * offsetsSize + 2 * edgesSize + namesSize != size) {
+                throw new IOException(String.format("Corrupted snapshot %s", file));
+            }
+
+            // Each section is mapped on its own, so that only sections (and not files) are limited to 2 GB
+            long position = HEADER_SIZE;
+            ByteBuffer[] sections = new ByteBuffer[6];
+            long[] sizes = {offsetsSize, offsetsSize, edgesSize, offsetsSize, edgesSize, namesSize};
+            for (int i = 0; i < sections.length; i++) {
+                if (sizes[i] > Integer.MAX_VALUE) {
+                    throw new IOException(String.format("Snapshot %s is too big", file));
+                }
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, sizes[i]);
+                position += sizes[i];
+            }
+            if (verify) {
+                CRC32 crc = new CRC32();
+                for (ByteBuffer section : sections) {
+                    crc.update(section.duplicate());
+                }
+                if ((int) crc.getValue() != expectedCrc) {
+                    throw new IOException(String.format("Checksum mismatch in snapshot %s", file));
+                }
+            }
+            IntBuffer nameOffsets = sections[0].asIntBuffer();
+            IntBuffer targetOffsets = sections[1].asIntBuffer();
+            IntBuffer targets = sections[2].asIntBuffer();
+            IntBuffer sourceOffsets = sections[3].asIntBuffer();
+            IntBuffer sources = sections[4].asIntBuffer();
+            if (verify && (!isValid(nameOffsets, namesSize) || !isValid(targetOffsets, targets)
+                    || !isValid(sourceOffsets, sources))) {
+                throw new IOException(String.format("Corrupted snapshot %s", file));
+            }
+
+            ByteBuffer names = sections[5];
+            String[] identifiers = new String[numberOfNodes];
+            int[] inDegree = new int[numberOfNodes];
+            int[] outDegree = new int[numberOfNodes];
+            byte[] name = new byte[0];
+            for (int node = 0; node < numberOfNodes; node++) {
+                int length = nameOffsets.get(node + 1) - nameOffsets.get(node);
+                if (name.length < length) {
+                    name = new byte[length];
+                }
+                names.get(name, 0, length);
+                identifiers[node] = new String(name, 0, length, StandardCharsets.UTF_8);
+                outDegree[node] = targetOffsets.get(node + 1) - targetOffsets.get(node);
+                inDegree[node] = sourceOffsets.get(node + 1) - sourceOffsets.get(node);
+            }
+            NameIndex indexes = new NameIndex(identifiers);
+            if (verify && indexes.index().size() != numberOfNodes) {
+                throw new IOException(String.format("Corrupted snapshot %s", file));
+            }
+            BitSet alive = new BitSet(numberOfNodes);
+            alive.set(0, numberOfNodes);
+            return new DirectedGraph<>(indexes, identifiers,
+                    new MappedAdjacency(targetOffsets, targets, sourceOffsets, sources),
+                    alive, inDegree, outDegree);
+        }
+    }
+
+    /**
+     * Checks that the offsets of the names are increasing, and span all the
+     * names.
+     */
+    private static boolean isValid(IntBuffer nameOffsets, long namesSize) {
+        for (int i = 1; i < nameOffsets.limit(); i++) {
+            if (nameOffsets.get(i) < nameOffsets.get(i - 1)) {
+                return false;
+            }
+        }
+        return nameOffsets.get(0) == 0 && nameOffsets.get(nameOffsets.limit() - 1) == namesSize;
+    }
+
+    /**
+     * Checks that the rows (or columns) are well formed: increasing offsets,
+     * and neighbors in range and strictly ascending in each row.
+     */
+    private static boolean isValid(IntBuffer offsets, IntBuffer neighbors) {
+        int numberOfNodes = offsets.limit() - 1;
+        if (offsets.get(0) != 0 || offsets.get(numberOfNodes) != neighbors.limit()) {
+            return false;
+        }
+        for (int node = 0; node < numberOfNodes; node++) {
+            if (offsets.get(node + 1) < offsets.get(node)) {
+                return false;
+            }
+            for (int i = offsets.get(node); i < offsets.get(node + 1); i++) {
+                int neighbor = neighbors.get(i);
+                if (neighbor < 0 || neighbor >= numberOfNodes
+                        || (i > offsets.get(node) && neighbor <= neighbors.get(i - 1))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The map from node names to indexes of a loaded snapshot. Most graphs are
+     * walked by index, so the hash map is built the first time it is used.
+     */
+    private static final class NameIndex extends AbstractMap<String, Integer> {
+
+        private final String[] names;
+        private volatile Map<String, Integer> index;
+
+        NameIndex(String[] names) {
+            this.names = names;
+        }
+
+        Map<String, Integer> index() {
+            Map<String, Integer> result = index;
+            if (result == null) {
+                synchronized (this) {
+                    result = index;
+                    if (result == null) {
+                        HashMap<String, Integer> map = new HashMap<>(DirectedGraphBuilder.capacity(names.length));
+                        for (int i = 0; i < names.length; i++) {
+                            map.put(names[i], i);
+                        }
+                        result = Collections.unmodifiableMap(map);
+                        index = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            return index().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return index().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return index().size();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return index().entrySet();
+        }
+
+    }
+
+}
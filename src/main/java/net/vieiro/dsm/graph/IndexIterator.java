@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntPredicate;
+
+/**
+ * Iterates over the indexes given by another iterator, skipping the indexes
+ * that do not satisfy a predicate (usually, nodes that are not in the graph).
+ */
+class IndexIterator implements PrimitiveIterator.OfInt {
+
+    private final PrimitiveIterator.OfInt indexes;
+    private final IntPredicate predicate;
+    private int next;
+
+    IndexIterator(PrimitiveIterator.OfInt indexes, IntPredicate predicate) {
+        this.indexes = indexes;
+        this.predicate = predicate;
+        advanceToNext();
+    }
+
+    private boolean advanceToNext() {
+        while (indexes.hasNext()) {
+            next = indexes.nextInt();
+            if (predicate.test(next)) {
+                return true;
+            }
+        }
+        next = -1;
+        return false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != -1;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("This iterator has no more elements");
+        }
+        int current = next;
+        advanceToNext();
+        return current;
+    }
+
+}
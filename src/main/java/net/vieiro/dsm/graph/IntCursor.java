@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+/**
+ * A reusable cursor over the indexes of the neighbors of a node. Cursors
+ * allocate nothing once created, so algorithms can walk the graph creating one
+ * cursor and resetting it to each node they visit.
+ *
+ * <pre>
+ * IntCursor cursor = graph.successorCursor();
+ * cursor.reset(node);
+ * for (int next = cursor.next(); next != IntCursor.END; next = cursor.next()) {
+ *     ...
+ * }
+ * </pre>
+ */
+public interface IntCursor {
+
+    /**
+     * Returned by next() when there are no more neighbors.
+     */
+    int END = -1;
+
+    /**
+     * Positions this cursor before the first neighbor of a node.
+     *
+     * @param node The index of the node.
+     * @throws java.util.NoSuchElementException if the node is not on the
+     * graph.
+     */
+    void reset(int node);
+
+    /**
+     * Positions this cursor before the first neighbor of a node whose index
+     * is from or greater. This resumes a walk where it was left, so
+     * algorithms can share a cursor between several nodes keeping only an int
+     * per node.
+     *
+     * @param node The index of the node.
+     * @param from The lowest index of the neighbors to return, not negative.
+     * @throws java.util.NoSuchElementException if the node is not on the
+     * graph.
+     */
+    void reset(int node, int from);
+
+    /**
+     * Returns the index of the next neighbor, in ascending order.
+     *
+     * @return The index of the next neighbor, or END if there are no more.
+     */
+    int next();
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.nio.IntBuffer;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A sparse adjacency like SparseAdjacency, but reading its compressed rows
+ * and columns straight from (memory-mapped) buffers, so nothing is copied to
+ * the heap. Only absolute gets are used, so buffers can be shared between
+ * threads.
+ */
+final class MappedAdjacency implements Adjacency {
+
+    private final IntBuffer targetOffsets;
+    private final IntBuffer targets;
+    private final IntBuffer sourceOffsets;
+    private final IntBuffer sources;
+    private final int size;
+
+    /**
+     * Creates an adjacency over compressed rows and columns.
+     *
+     * @param targetOffsets The offsets of each row in targets, size+1 ints.
+     * @param targets The targets of each row, sorted in ascending order.
+     * @param sourceOffsets The offsets of each column in sources, size+1 ints.
+     * @param sources The sources of each column, sorted in ascending order.
+     */
+    MappedAdjacency(IntBuffer targetOffsets, IntBuffer targets, IntBuffer sourceOffsets, IntBuffer sources) {
+        this.targetOffsets = targetOffsets;
+        this.targets = targets;
+        this.sourceOffsets = sourceOffsets;
+        this.sources = sources;
+        this.size = targetOffsets.limit() - 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean connects(int source, int target) {
+        int low = targetOffsets.get(source);
+        int high = targetOffsets.get(source + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = targets.get(middle);
+            if (value < target) {
+                low = middle + 1;
+            } else if (value > target) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt successors(int source) {
+        return new RangeIterator(targets, targetOffsets.get(source), targetOffsets.get(source + 1));
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt predecessors(int target) {
+        return new RangeIterator(sources, sourceOffsets.get(target), sourceOffsets.get(target + 1));
+    }
+
+    @Override
+    public IntCursor successorCursor() {
+        return new RangeCursor(targetOffsets, targets);
+    }
+
+    @Override
+    public IntCursor predecessorCursor() {
+        return new RangeCursor(sourceOffsets, sources);
+    }
+
+    @Override
+    public void forEachSuccessor(int source, BitSet alive, IntConsumer action) {
+        forEach(targetOffsets.get(source), targetOffsets.get(source + 1), targets, alive, action);
+    }
+
+    @Override
+    public void forEachPredecessor(int target, BitSet alive, IntConsumer action) {
+        forEach(sourceOffsets.get(target), sourceOffsets.get(target + 1), sources, alive, action);
+    }
+
+    private static void forEach(int start, int end, IntBuffer values, BitSet alive, IntConsumer action) {
+        for (int i = start; i < end; i++) {
+            int value = values.get(i);
+            if (alive == null || alive.get(value)) {
+                action.accept(value);
+            }
+        }
+    }
+
+    private static final class RangeCursor implements IntCursor {
+
+        private final IntBuffer offsets;
+        private final IntBuffer values;
+        private int position;
+        private int end;
+
+        RangeCursor(IntBuffer offsets, IntBuffer values) {
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        @Override
+        public void reset(int node) {
+            position = offsets.get(node);
+            end = offsets.get(node + 1);
+        }
+
+        @Override
+        public void reset(int node, int from) {
+            // The first position with a value not less than from
+            int low = offsets.get(node);
+            int high = offsets.get(node + 1);
+            end = high;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values.get(middle) < from) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            position = low;
+        }
+
+        @Override
+        public int next() {
+            return position < end ? values.get(position++) : END;
+        }
+
+    }
+
+    private static final class RangeIterator implements PrimitiveIterator.OfInt {
+
+        private final IntBuffer values;
+        private final int end;
+        private int position;
+
+        RangeIterator(IntBuffer values, int start, int end) {
+            this.values = values;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (position >= end) {
+                throw new NoSuchElementException("This iterator has no more elements");
+            }
+            return values.get(position++);
+        }
+
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * A workspace copy of a DirectedGraph where nodes are removed in place. This
+ * is useful for algorithms that peel nodes from a graph, as removing a node
+ * only updates the degrees of its neighbors and allocates nothing. Use
+ * DirectedGraph.workspace() to create one of these.
+ *
+ * Nodes keep the indexes they have in the DirectedGraph, and the adjacency is
+ * shared with it.
+ *
+ * @param <ID> The equals/hashcode identifier for nodes.
+ */
+public final class MutableDirectedGraph<ID> extends AbstractDirectedGraph<ID> {
+
+    private final IntCursor targets;
+    private final IntCursor sources;
+    private int order;
+
+    MutableDirectedGraph(DirectedGraph<ID> graph) {
+        super(graph.indexes, graph.identifiers, graph.adjacency,
+                (BitSet) graph.alive.clone(), graph.inDegree.clone(), graph.outDegree.clone());
+        this.order = graph.getOrder();
+        this.targets = graph.adjacency.successorCursor();
+        this.sources = graph.adjacency.predecessorCursor();
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the nodes in this graph. This is a live view that changes when
+     * nodes are removed.
+     *
+     * @return The nodes in this graph.
+     */
+    @Override
+    public Set<ID> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Removes a node (and its edges) from this graph. Iterators over this
+     * graph must not be used after removing nodes.
+     *
+     * @param id The node to remove.
+     * @return true if the node was in the graph.
+     */
+    public boolean remove(ID id) {
+        int index = indexOf(id);
+        return index != -1 && remove(index);
+    }
+
+    /**
+     * Removes the node with the given index (and its edges) from this graph.
+     * Iterators over this graph must not be used after removing nodes. This
+     * walks the successors and predecessors of the node, which costs
+     * O(degree) on sparse adjacencies. On bit matrices successors cost
+     * O(n/64), but predecessors are found testing the column bit of every
+     * row, so removing a node costs O(n).
+     *
+     * @param index The index of the node to remove.
+     * @return true if the node was in the graph.
+     */
+    public boolean remove(int index) {
+        if (!contains(index)) {
+            return false;
+        }
+        alive.clear(index);
+        order--;
+        targets.reset(index);
+        for (int target = targets.next(); target != IntCursor.END; target = targets.next()) {
+            inDegree[target]--;
+        }
+        sources.reset(index);
+        for (int source = sources.next(); source != IntCursor.END; source = sources.next()) {
+            outDegree[source]--;
+        }
+        return true;
+    }
+
+    /**
+     * Removes some nodes (and their edges) from this graph.
+     *
+     * @param ids The nodes to remove.
+     * @return true if any of the nodes was in the graph.
+     */
+    public boolean remove(Collection<ID> ids) {
+        boolean changed = false;
+        for (ID id : ids) {
+            changed |= remove(id);
+        }
+        return changed;
+    }
+
+    /**
+     * Returns an immutable DirectedGraph with the nodes currently in this
+     * graph.
+     *
+     * @return A DirectedGraph with the nodes in this graph.
+     */
+    public DirectedGraph<ID> toDirectedGraph() {
+        return new DirectedGraph<>(indexes, identifiers, adjacency,
+                (BitSet) alive.clone(), inDegree.clone(), outDegree.clone());
+    }
+
+}
@@ -16,48 +16,32 @@
 package net.vieiro.dsm.graph;
 
 import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.function.Predicate;
+import java.util.PrimitiveIterator;
 
+/**
+ * Iterates over the nodes of a graph given an iterator over their indexes in
+ * the adjacency matrix.
+ *
+ * @param <ID> The type of the nodes.
+ */
 class NodeIterator<ID> implements Iterator<ID> {
 
-    private final DirectedGraph<ID> graph;
-    private final Predicate<ID> predicate;
-    private final Iterator<ID> targets;
-    private ID target;
-
-    NodeIterator(DirectedGraph<ID> graph, Predicate<ID> predicate) {
-        this.graph = graph;
-        this.predicate = predicate;
-        this.targets = this.graph.nodes.iterator();
-        this.target = null;
-        advanceToNext();
-    }
+    private final ID[] identifiers;
+    private final PrimitiveIterator.OfInt indexes;
 
-    private boolean advanceToNext() {
-        while (targets.hasNext()) {
-            target = targets.next();
-            if (this.predicate.test(target)) {
-                return true;
-            }
-        }
-        target = null;
-        return false;
+    NodeIterator(ID[] identifiers, PrimitiveIterator.OfInt indexes) {
+        this.identifiers = identifiers;
+        this.indexes = indexes;
     }
 
     @Override
     public boolean hasNext() {
-        return target != null;
+        return indexes.hasNext();
     }
 
     @Override
     public ID next() {
-        if (!hasNext()) {
-            throw new NoSuchElementException("This iterator has no more elements");
-        }
-        ID next = target;
-        advanceToNext();
-        return next;
+        return identifiers[indexes.nextInt()];
     }
 
 }
@@ -15,47 +15,38 @@
  */
 package net.vieiro.dsm.graph;
 
-import java.util.function.Predicate;
+import java.util.function.IntPredicate;
 
 /**
- * A predicate that checks a property of a node on a graph.
- *
- * @param <ID> The types of nodes.
+ * A predicate that checks a property of a node on a graph, given the index of
+ * the node.
  */
-abstract class NodePredicate<ID> implements Predicate<ID> {
+abstract class NodePredicate implements IntPredicate {
 
-    protected final DirectedGraph<ID> graph;
+    protected final int[] degrees;
 
     /**
-     * Builds a graph predicate from a graph.
+     * Builds a graph predicate from the degrees of the nodes of a graph.
      *
-     * @param graph the graph.
+     * @param degrees the in or out degrees of the nodes, by index.
      */
-    NodePredicate(DirectedGraph<ID> graph) {
-        this.graph = graph;
+    NodePredicate(int[] degrees) {
+        this.degrees = degrees;
     }
 
     /**
      * Verifies if a node is a source of the graph.
      *
-     * @param <ID> The type of the nodes.
-     * @param graph The graph
+     * @param inDegree The in-degree of the nodes of the graph.
      * @return A predicate that checks if a node is a source (has no
      * predecessors).
      */
-    public static final <ID> NodePredicate<ID> sourcePredicate(DirectedGraph<ID> graph) {
-        return new NodePredicate<ID>(graph) {
+    public static final NodePredicate sourcePredicate(int[] inDegree) {
+        return new NodePredicate(inDegree) {
 
             @Override
-            public boolean test(ID node) {
-                int nodeIndex = this.graph.indexes.get(node);
-                for (ID target : this.graph.nodes) {
-                    int targetIndex = this.graph.indexes.get(target);
-                    if (this.graph.adjacencyMatrix[targetIndex][nodeIndex]) {
-                        return false;
-                    }
-                }
-                return true;
+            public boolean test(int node) {
+                return this.degrees[node] == 0;
             }
         };
     }
@@ -63,23 +54,15 @@ abstract class NodePredicate<ID> implements Predicate<ID> {
     /**
      * Verifies if a node is a sink of the graph.
      *
-     * @param <ID> The type of the nodes.
-     * @param graph The graph
+     * @param outDegree The out-degree of the nodes of the graph.
      * @return A predicate that checks if a node is a sink (has no successors).
      */
-    public static final <ID> NodePredicate<ID> sinkPredicate(DirectedGraph<ID> graph) {
-        return new NodePredicate<ID>(graph) {
+    public static final NodePredicate sinkPredicate(int[] outDegree) {
+        return new NodePredicate(outDegree) {
 
             @Override
-            public boolean test(ID node) {
-                int nodeIndex = this.graph.indexes.get(node);
-                for (ID target : this.graph.nodes) {
-                    int targetIndex = this.graph.indexes.get(target);
-                    if (this.graph.adjacencyMatrix[nodeIndex][targetIndex]) {
-                        return false;
-                    }
-                }
-                return true;
+            public boolean test(int node) {
+                return this.degrees[node] == 0;
             }
         };
     }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * An unmodifiable view of the nodes whose indexes are set in a BitSet.
+ *
+ * @param <ID> The type of the nodes.
+ */
+final class NodeSet<ID> extends AbstractSet<ID> {
+
+    private final Map<ID, Integer> indexes;
+    private final ID[] identifiers;
+    private final BitSet alive;
+
+    NodeSet(Map<ID, Integer> indexes, ID[] identifiers, BitSet alive) {
+        this.indexes = indexes;
+        this.identifiers = identifiers;
+        this.alive = alive;
+    }
+
+    @Override
+    public boolean contains(Object node) {
+        Integer index = indexes.get(node);
+        return index != null && alive.get(index);
+    }
+
+    @Override
+    public Iterator<ID> iterator() {
+        return new NodeIterator<>(identifiers, alive.stream().iterator());
+    }
+
+    @Override
+    public int size() {
+        return alive.cardinality();
+    }
+
+}
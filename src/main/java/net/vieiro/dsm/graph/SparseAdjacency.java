@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed sparse row (CSR) adjacency, with its compressed sparse column
+ * (CSC) counterpart for predecessors. Memory is O(nodes + edges), and
+ * iterating successors or predecessors is O(degree).
+ */
+final class SparseAdjacency implements Adjacency {
+
+    /**
+     * The successors of node i are in targets[targetOffsets[i]] (inclusive) to
+     * targets[targetOffsets[i+1]] (exclusive), sorted in ascending order.
+     */
+    private final int[] targetOffsets;
+    private final int[] targets;
+    /**
+     * The predecessors of node i are in sources[sourceOffsets[i]] (inclusive)
+     * to sources[sourceOffsets[i+1]] (exclusive), sorted in ascending order.
+     */
+    private final int[] sourceOffsets;
+    private final int[] sources;
+
+    /**
+     * Creates a sparse adjacency from its compressed rows. The reverse
+     * (compressed columns) is computed from them.
+     *
+     * @param targetOffsets The offsets of each row in targets, of length
+     * size+1.
+     * @param targets The targets of each row, sorted in ascending order within
+     * each row and without duplicates.
+     */
+    SparseAdjacency(int[] targetOffsets, int[] targets) {
+        this.targetOffsets = targetOffsets;
+        this.targets = targets;
+        int size = targetOffsets.length - 1;
+        int edges = targetOffsets[size];
+        this.sourceOffsets = new int[size + 1];
+        this.sources = new int[edges];
+        for (int i = 0; i < edges; i++) {
+            sourceOffsets[targets[i] + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            sourceOffsets[i + 1] += sourceOffsets[i];
+        }
+        // Rows are visited in ascending order, so columns end up sorted
+        int[] next = Arrays.copyOf(sourceOffsets, size);
+        for (int source = 0; source < size; source++) {
+            for (int i = targetOffsets[source]; i < targetOffsets[source + 1]; i++) {
+                sources[next[targets[i]]++] = source;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return targetOffsets.length - 1;
+    }
+
+    @Override
+    public boolean connects(int source, int target) {
+        return Arrays.binarySearch(targets, targetOffsets[source], targetOffsets[source + 1], target) >= 0;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt successors(int source) {
+        return new RangeIterator(targets, targetOffsets[source], targetOffsets[source + 1]);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt predecessors(int target) {
+        return new RangeIterator(sources, sourceOffsets[target], sourceOffsets[target + 1]);
+    }
+
+    @Override
+    public IntCursor successorCursor() {
+        return new RangeCursor(targetOffsets, targets);
+    }
+
+    @Override
+    public IntCursor predecessorCursor() {
+        return new RangeCursor(sourceOffsets, sources);
+    }
+
+    @Override
+    public void forEachSuccessor(int source, BitSet alive, IntConsumer action) {
+        for (int i = targetOffsets[source]; i < targetOffsets[source + 1]; i++) {
+            if (alive == null || alive.get(targets[i])) {
+                action.accept(targets[i]);
+            }
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(int target, BitSet alive, IntConsumer action) {
+        for (int i = sourceOffsets[target]; i < sourceOffsets[target + 1]; i++) {
+            if (alive == null || alive.get(sources[i])) {
+                action.accept(sources[i]);
+            }
+        }
+    }
+
+    private static final class RangeCursor implements IntCursor {
+
+        private final int[] offsets;
+        private final int[] values;
+        private int position;
+        private int end;
+
+        RangeCursor(int[] offsets, int[] values) {
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        @Override
+        public void reset(int node) {
+            position = offsets[node];
+            end = offsets[node + 1];
+        }
+
+        @Override
+        public void reset(int node, int from) {
+            end = offsets[node + 1];
+            int found = Arrays.binarySearch(values, offsets[node], end, from);
+            position = found >= 0 ? found : -found - 1;
+        }
+
+        @Override
+        public int next() {
+            return position < end ? values[position++] : END;
+        }
+
+    }
+
+    private static final class RangeIterator implements PrimitiveIterator.OfInt {
+
+        private final int[] values;
+        private final int end;
+        private int position;
+
+        RangeIterator(int[] values, int start, int end) {
+            this.values = values;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (position >= end) {
+                throw new NoSuchElementException("This iterator has no more elements");
+            }
+            return values[position++];
+        }
+
+    }
+
+}
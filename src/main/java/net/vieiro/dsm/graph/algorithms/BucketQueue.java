@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A bucket queue of nodes (integers from 0 to n-1) used by the Eades, Lin and
+ * Smyth heuristic. Sinks, sources and the rest of the nodes (bucketed by δ =
+ * out-degree - in-degree) are kept in doubly linked lists, so moving a node
+ * from one list to another is O(1).
+ */
+final class BucketQueue {
+
+    static final int NONE = -1;
+    private static final int SINKS = 0;
+    private static final int SOURCES = 1;
+    private static final int FIRST_BUCKET = 2;
+
+    private final int maxDelta;
+    private final int[] heads;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] listOf;
+    private int highestBucket;
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param nodes The number of nodes.
+     * @param maxDelta The maximum absolute value of δ of any node.
+     */
+    BucketQueue(int nodes, int maxDelta) {
+        this.maxDelta = maxDelta;
+        this.heads = new int[FIRST_BUCKET + 2 * maxDelta + 1];
+        this.next = new int[nodes];
+        this.previous = new int[nodes];
+        this.listOf = new int[nodes];
+        Arrays.fill(heads, NONE);
+        Arrays.fill(listOf, NONE);
+        this.highestBucket = FIRST_BUCKET - 1;
+    }
+
+    /**
+     * Adds or moves a node to the list given by its degrees.
+     *
+     * @param node The node.
+     * @param inDegree The in-degree of the node.
+     * @param outDegree The out-degree of the node.
+     */
+    void update(int node, int inDegree, int outDegree) {
+        int list = outDegree == 0 ? SINKS
+                : inDegree == 0 ? SOURCES
+                        : FIRST_BUCKET + maxDelta + outDegree - inDegree;
+        if (listOf[node] == list) {
+            return;
+        }
+        remove(node);
+        int head = heads[list];
+        next[node] = head;
+        previous[node] = NONE;
+        if (head != NONE) {
+            previous[head] = node;
+        }
+        heads[list] = node;
+        listOf[node] = list;
+        if (list > highestBucket) {
+            highestBucket = list;
+        }
+    }
+
+    /**
+     * Removes a node from the queue, if present.
+     *
+     * @param node The node.
+     */
+    void remove(int node) {
+        int list = listOf[node];
+        if (list == NONE) {
+            return;
+        }
+        if (previous[node] != NONE) {
+            next[previous[node]] = next[node];
+        } else {
+            heads[list] = next[node];
+        }
+        if (next[node] != NONE) {
+            previous[next[node]] = previous[node];
+        }
+        listOf[node] = NONE;
+    }
+
+    /**
+     * Returns a sink, if any.
+     *
+     * @return A sink, or NONE.
+     */
+    int sink() {
+        return heads[SINKS];
+    }
+
+    /**
+     * Returns a source, if any.
+     *
+     * @return A source, or NONE.
+     */
+    int source() {
+        return heads[SOURCES];
+    }
+
+    /**
+     * Returns a node with the maximum δ among those that are neither sinks nor
+     * sources, if any.
+     *
+     * @return A node with maximum δ, or NONE.
+     */
+    int maxDelta() {
+        while (highestBucket >= FIRST_BUCKET && heads[highestBucket] == NONE) {
+            highestBucket--;
+        }
+        return highestBucket >= FIRST_BUCKET ? heads[highestBucket] : NONE;
+    }
+
+}
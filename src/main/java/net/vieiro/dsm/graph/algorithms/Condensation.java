@@ -0,0 +1,214 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.IntCursor;
+
+/**
+ * The condensation of a directed graph: the acyclic graph of its strongly
+ * connected components, with a layer for each component. Computed once in
+ * O(n+m) time, and shared by the algorithms and reports that need an ordering
+ * of the graph.
+ *
+ * Components are numbered in topological order, so edges between components
+ * always go from a lower to a higher component. The layer of a component is
+ * the length of the longest path to it from a component without
+ * predecessors, so edges between components always go from a lower to a
+ * higher layer too.
+ *
+ * @param <ID> The type of nodes.
+ */
+public final class Condensation<ID> {
+
+    private final DirectedGraph<ID> graph;
+    private final StronglyConnectedComponents components;
+    /**
+     * The successors of component c are in targets[targetOffsets[c]]
+     * (inclusive) to targets[targetOffsets[c+1]] (exclusive), without
+     * duplicates.
+     */
+    final int[] targetOffsets;
+    final int[] targets;
+    /**
+     * The layer of each component.
+     */
+    final int[] layers;
+    private final int layerCount;
+
+    private Condensation(DirectedGraph<ID> graph, StronglyConnectedComponents components,
+            int[] targetOffsets, int[] targets, int[] layers, int layerCount) {
+        this.graph = graph;
+        this.components = components;
+        this.targetOffsets = targetOffsets;
+        this.targets = targets;
+        this.layers = layers;
+        this.layerCount = layerCount;
+    }
+
+    /**
+     * Computes the condensation of a graph.
+     *
+     * @param <ID> The type of nodes.
+     * @param graph The graph.
+     * @return The condensation of the graph.
+     */
+    public static <ID> Condensation<ID> of(DirectedGraph<ID> graph) {
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(graph);
+        int count = components.getCount();
+        int[] componentOf = components.componentOf;
+
+        // Edges between components, each one once
+        int[] targetOffsets = new int[count + 1];
+        int[] targets = new int[Math.max(16, count)];
+        int edges = 0;
+        int[] seenFrom = new int[count];
+        Arrays.fill(seenFrom, -1);
+        IntCursor cursor = graph.successorCursor();
+        for (int c = 0; c < count; c++) {
+            for (int i = components.offsets[c]; i < components.offsets[c + 1]; i++) {
+                cursor.reset(components.nodes[i]);
+                for (int target = cursor.next(); target != IntCursor.END; target = cursor.next()) {
+                    int t = componentOf[target];
+                    if (t != c && seenFrom[t] != c) {
+                        seenFrom[t] = c;
+                        if (edges == targets.length) {
+                            targets = Arrays.copyOf(targets, targets.length + (targets.length >> 1));
+                        }
+                        targets[edges++] = t;
+                    }
+                }
+            }
+            targetOffsets[c + 1] = edges;
+        }
+        targets = Arrays.copyOf(targets, edges);
+
+        // Longest paths, visiting components in topological order
+        int[] layers = new int[count];
+        int layerCount = count == 0 ? 0 : 1;
+        for (int c = 0; c < count; c++) {
+            layerCount = Math.max(layerCount, layers[c] + 1);
+            for (int i = targetOffsets[c]; i < targetOffsets[c + 1]; i++) {
+                layers[targets[i]] = Math.max(layers[targets[i]], layers[c] + 1);
+            }
+        }
+        return new Condensation<>(graph, components, targetOffsets, targets, layers, layerCount);
+    }
+
+    /**
+     * Returns the graph.
+     *
+     * @return The graph this is the condensation of.
+     */
+    public DirectedGraph<ID> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the strongly connected components of the graph.
+     *
+     * @return The strongly connected components of the graph.
+     */
+    public StronglyConnectedComponents getComponents() {
+        return components;
+    }
+
+    /**
+     * Returns the number of components.
+     *
+     * @return The number of components.
+     */
+    public int getComponentCount() {
+        return components.getCount();
+    }
+
+    /**
+     * Returns the component of a node.
+     *
+     * @param node The index of the node in the graph.
+     * @return The component of the node.
+     */
+    public int componentOf(int node) {
+        return components.componentOf(node);
+    }
+
+    /**
+     * Returns the number of successors of a component.
+     *
+     * @param component The component.
+     * @return The number of components with edges from the component.
+     */
+    public int successorCount(int component) {
+        return targetOffsets[component + 1] - targetOffsets[component];
+    }
+
+    /**
+     * Visits the successors of a component.
+     *
+     * @param component The component.
+     * @param action The action to invoke with each component with edges from
+     * the component, once each.
+     */
+    public void forEachSuccessor(int component, IntConsumer action) {
+        for (int i = targetOffsets[component]; i < targetOffsets[component + 1]; i++) {
+            action.accept(targets[i]);
+        }
+    }
+
+    /**
+     * Returns the nodes of the graph in topological order of their components,
+     * with the nodes of each component together and in ascending order.
+     *
+     * @return The indexes of the nodes.
+     */
+    public int[] topologicalOrder() {
+        return components.nodes.clone();
+    }
+
+    /**
+     * Returns the number of layers.
+     *
+     * @return The number of layers, 0 for empty graphs.
+     */
+    public int getLayerCount() {
+        return layerCount;
+    }
+
+    /**
+     * Returns the layer of a component.
+     *
+     * @param component The component.
+     * @return The length of the longest path to the component from a component
+     * without predecessors.
+     */
+    public int componentLayer(int component) {
+        return layers[component];
+    }
+
+    /**
+     * Returns the layer of a node.
+     *
+     * @param node The index of the node in the graph.
+     * @return The layer of the component of the node.
+     */
+    public int layerOf(int node) {
+        return layers[componentOf(node)];
+    }
+
+}
@@ -16,10 +16,14 @@
 package net.vieiro.dsm.graph.algorithms;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.IntCursor;
 
 /**
  * Computes an approximation of the Feedback Arc Set of a directed graph.
@@ -36,51 +40,197 @@ public final class FAS<ID> {
      * W.F. (1993) A fast and effective heuristic for the feedback arc set
      * problem. Information Processing Letters, 47 (6). pp. 319-323."
      *
+     * Feedback arcs can only be found inside strongly connected components, so
+     * components are laid out in topological order and the heuristic is run
+     * in each component with more than one node, in parallel in the common
+     * pool. Sinks, sources and δ-buckets are kept in a bucket queue, so this
+     * runs in O(n+m) time.
+     *
      * @param <ID> The type of nodes in the graph.
      * @param graph The graph.
      * @return A FAS with the result.
      */
     public static <ID> List<ID> fas(DirectedGraph<ID> graph) {
-        ArrayList<ID> s1 = new ArrayList<>();
-        ArrayList<ID> s2 = new ArrayList<>();
-
-        while (graph.getOrder() != 0) {
-            {
-                boolean hasSinks = false;
-                do {
-                    ArrayList<ID> sinks = new ArrayList<>();
-                    graph.sinks().forEachRemaining((node) -> sinks.add(node));
-                    s2.addAll(0, sinks);
-                    graph = graph.remove(sinks);
-                    hasSinks = !sinks.isEmpty();
-                } while (hasSinks);
+        return fas(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves the Feedback Arc Set Problem as {@link #fas(DirectedGraph)} does,
+     * running the heuristic on each strongly connected component in the given
+     * pool.
+     *
+     * @param <ID> The type of nodes in the graph.
+     * @param graph The graph.
+     * @param pool The pool, or null to run in the calling thread.
+     * @return A FAS with the result.
+     */
+    public static <ID> List<ID> fas(DirectedGraph<ID> graph, ForkJoinPool pool) {
+        return fas(Condensation.of(graph), pool);
+    }
+
+    /**
+     * Solves the Feedback Arc Set Problem as {@link #fas(DirectedGraph)} does,
+     * reusing the condensation of the graph.
+     *
+     * @param <ID> The type of nodes in the graph.
+     * @param condensation The condensation of the graph.
+     * @param pool The pool, or null to run in the calling thread.
+     * @return A FAS with the result.
+     */
+    public static <ID> List<ID> fas(Condensation<ID> condensation, ForkJoinPool pool) {
+        DirectedGraph<ID> graph = condensation.getGraph();
+        int[] ordering = fasIndexes(condensation, pool);
+        ArrayList<ID> result = new ArrayList<>(ordering.length);
+        for (int i : ordering) {
+            result.add(graph.nodeAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * Orders the strongly connected components of a graph topologically, and
+     * the nodes in each component with the Eades, Lin and Smyth heuristic.
+     *
+     * @param condensation The condensation of the graph.
+     * @param pool The pool where components are ordered, or null to order them
+     * in the calling thread.
+     * @return The ordering of the indexes of the nodes.
+     */
+    static int[] fasIndexes(Condensation<?> condensation, ForkJoinPool pool) {
+        DirectedGraph<?> graph = condensation.getGraph();
+        StronglyConnectedComponents components = condensation.getComponents();
+        // Nodes grouped by component, each one ordered in place afterwards
+        int[] ordering = condensation.topologicalOrder();
+        int[] cyclic = IntStream.range(0, components.getCount())
+                .filter(c -> components.size(c) > 1)
+                .toArray();
+        // Each node is in a single component, so components can share this
+        int[] local = new int[graph.getIndexCapacity()];
+        IntConsumer order = c -> fasIndexes(graph, components.componentOf, c,
+                ordering, components.offsets[c], components.offsets[c + 1], local);
+        if (pool == null || cyclic.length < 2) {
+            IntStream.of(cyclic).forEach(order);
+        } else {
+            pool.submit(() -> IntStream.of(cyclic).parallel().forEach(order)).join();
+        }
+        return ordering;
+    }
+
+    /**
+     * Eades, Lin and Smyth heuristic over the nodes of a strongly connected
+     * component. Edges leaving the component and self loops are ignored.
+     *
+     * @param graph The graph.
+     * @param componentOf The component of each node.
+     * @param component The component.
+     * @param ordering Where the nodes of the component are, in
+     * ordering[start..end), reordered in place.
+     * @param start The first node of the component in ordering.
+     * @param end The end of the component in ordering.
+     * @param local Used to map nodes in the graph to nodes in the component.
+     */
+    private static void fasIndexes(DirectedGraph<?> graph, int[] componentOf, int component,
+            int[] ordering, int start, int end, int[] local) {
+        int n = end - start;
+        int[] nodes = Arrays.copyOfRange(ordering, start, end);
+        for (int i = 0; i < n; i++) {
+            local[nodes[i]] = i;
+        }
+        int[] inDegree = new int[n];
+        int[] outDegree = new int[n];
+        IntCursor targets = graph.successorCursor();
+        int maxDelta = 0;
+        for (int i = 0; i < n; i++) {
+            targets.reset(nodes[i]);
+            for (int target = targets.next(); target != IntCursor.END; target = targets.next()) {
+                if (target != nodes[i] && componentOf[target] == component) {
+                    outDegree[i]++;
+                    inDegree[local[target]]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            maxDelta = Math.max(maxDelta, Math.max(inDegree[i], outDegree[i]));
+        }
+        BucketQueue queue = new BucketQueue(n, maxDelta);
+        for (int i = 0; i < n; i++) {
+            queue.update(i, inDegree[i], outDegree[i]);
+        }
+
+        // s1 grows from the start, s2 grows from the end
+        Component c = new Component(nodes, local, componentOf, component, inDegree, outDegree, queue,
+                targets, graph.predecessorCursor());
+        int s1 = start;
+        int s2 = end;
+        while (s1 < s2) {
+            int node;
+            while ((node = queue.sink()) != BucketQueue.NONE) {
+                ordering[--s2] = nodes[node];
+                c.remove(node);
             }
-            {
-                boolean hasSources = false;
-                do {
-                    ArrayList<ID> sources = new ArrayList<>();
-                    graph.sources().forEachRemaining((node) -> sources.add(node));
-                    s1.addAll(sources);
-                    graph = graph.remove(sources);
-                    hasSources = !sources.isEmpty();
-                } while (hasSources);
+            while ((node = queue.source()) != BucketQueue.NONE) {
+                ordering[s1++] = nodes[node];
+                c.remove(node);
+            }
+            if ((node = queue.maxDelta()) != BucketQueue.NONE) {
+                ordering[s1++] = nodes[node];
+                c.remove(node);
+            }
+        }
+    }
+
+    /**
+     * The state of the heuristic in a component. Nodes are numbered from 0 to
+     * the size of the component.
+     */
+    private static final class Component {
+
+        private final int[] nodes;
+        private final int[] local;
+        private final int[] componentOf;
+        private final int component;
+        private final int[] inDegree;
+        private final int[] outDegree;
+        private final boolean[] removed;
+        private final BucketQueue queue;
+        private final IntCursor targets;
+        private final IntCursor sources;
+
+        Component(int[] nodes, int[] local, int[] componentOf, int component, int[] inDegree, int[] outDegree,
+                BucketQueue queue, IntCursor targets, IntCursor sources) {
+            this.nodes = nodes;
+            this.local = local;
+            this.componentOf = componentOf;
+            this.component = component;
+            this.inDegree = inDegree;
+            this.outDegree = outDegree;
+            this.removed = new boolean[nodes.length];
+            this.queue = queue;
+            this.targets = targets;
+            this.sources = sources;
+        }
+
+        void remove(int node) {
+            queue.remove(node);
+            removed[node] = true;
+            targets.reset(nodes[node]);
+            for (int target = targets.next(); target != IntCursor.END; target = targets.next()) {
+                if (componentOf[target] == component && !removed[local[target]]) {
+                    int t = local[target];
+                    inDegree[t]--;
+                    queue.update(t, inDegree[t], outDegree[t]);
+                }
             }
-            if (graph.getOrder() != 0) {
-                TreeMap<Integer, ID> ordersAndNodes = new TreeMap<>();
-                for (ID node : graph.nodes()) {
-                    int[] inOut = graph.getInAndOutDegrees(node);
-                    int degree = inOut[0] - inOut[1];
-                    ordersAndNodes.put(Math.abs(degree), node);
+            sources.reset(nodes[node]);
+            for (int source = sources.next(); source != IntCursor.END; source = sources.next()) {
+                if (componentOf[source] == component && !removed[local[source]]) {
+                    int s = local[source];
+                    outDegree[s]--;
+                    queue.update(s, inDegree[s], outDegree[s]);
                 }
-                System.out.format("Orders and nodes: %s%n", ordersAndNodes);
-                ID nodeWithMinimumDegree = ordersAndNodes.firstEntry().getValue();
-                s1.add(nodeWithMinimumDegree);
-                graph = graph.remove(nodeWithMinimumDegree);
             }
         }
 
-        s1.addAll(s2);
-        return s1;
     }
 
 }
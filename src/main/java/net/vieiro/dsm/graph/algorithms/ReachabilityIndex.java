@@ -0,0 +1,273 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+
+/**
+ * A reachability index for graphs too big for a {@link TransitiveClosure},
+ * using "Yildirim, H., Chaoji, V. and Zaki, M.J. (2010) GRAIL: Scalable
+ * Reachability Index for Large Graphs. Proceedings of the VLDB Endowment, 3
+ * (1-2). pp. 276-284."
+ *
+ * Each strongly connected component of the graph gets an interval per
+ * labeling, computed with a randomized depth first search of the
+ * condensation: [the lowest post-order rank of its descendants, its own
+ * post-order rank]. If a component reaches another one then its intervals
+ * contain the intervals of the other one, so most negative queries are
+ * answered comparing k intervals. The rest are answered with a depth first
+ * search pruned with the intervals, the topological numbering and the layers
+ * of the components.
+ *
+ * Memory is O(n·k), building takes O(k·(n+m)) time, with labelings built in
+ * parallel. Indexes are immutable and can be queried from several threads.
+ *
+ * @param <ID> The type of nodes.
+ */
+public final class ReachabilityIndex<ID> {
+
+    /**
+     * The default number of labelings.
+     */
+    public static final int DEFAULT_LABELINGS = 5;
+    private static final long DEFAULT_SEED = 0x5EEDL;
+
+    private final Condensation<ID> condensation;
+    private final int labelings;
+    /**
+     * The interval of component c in labeling i is [labels[2*(c*k+i)],
+     * labels[2*(c*k+i)+1]], the intervals of a component are together.
+     */
+    private final int[] labels;
+
+    private ReachabilityIndex(Condensation<ID> condensation, int labelings, int[] labels) {
+        this.condensation = condensation;
+        this.labelings = labelings;
+        this.labels = labels;
+    }
+
+    /**
+     * Builds a reachability index with the default number of labelings, in
+     * the common pool.
+     *
+     * @param <ID> The type of nodes.
+     * @param graph The graph.
+     * @return The reachability index.
+     */
+    public static <ID> ReachabilityIndex<ID> of(DirectedGraph<ID> graph) {
+        return of(Condensation.of(graph), DEFAULT_LABELINGS, DEFAULT_SEED, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds a reachability index.
+     *
+     * @param <ID> The type of nodes.
+     * @param condensation The condensation of the graph.
+     * @param labelings The number of labelings. More labelings take more memory
+     * and answer more queries without searching.
+     * @param seed The seed of the random traversals.
+     * @param pool The pool where labelings are built, or null to build them in
+     * the calling thread.
+     * @return The reachability index.
+     * @throws IllegalArgumentException if the number of labelings is not
+     * positive.
+     */
+    public static <ID> ReachabilityIndex<ID> of(Condensation<ID> condensation, int labelings, long seed,
+            ForkJoinPool pool) {
+        if (labelings < 1) {
+            throw new IllegalArgumentException(String.format("Invalid number of labelings %d", labelings));
+        }
+        int count = condensation.getComponentCount();
+        boolean[] hasPredecessors = new boolean[count];
+        for (int target : condensation.targets) {
+            hasPredecessors[target] = true;
+        }
+        int[] roots = IntStream.range(0, count).filter(c -> !hasPredecessors[c]).toArray();
+        int[] labels = new int[2 * labelings * count];
+        IntConsumer label = i -> label(condensation, roots, labels, labelings, i, seed + i);
+        if (pool == null || labelings == 1) {
+            IntStream.range(0, labelings).forEach(label);
+        } else {
+            pool.submit(() -> IntStream.range(0, labelings).parallel().forEach(label)).join();
+        }
+        return new ReachabilityIndex<>(condensation, labelings, labels);
+    }
+
+    /**
+     * Computes a labeling with an iterative, randomized, depth first search.
+     * Roots are visited in random order, and the successors of each component
+     * starting at a random one.
+     */
+    private static void label(Condensation<?> condensation, int[] roots, int[] labels, int labelings,
+            int labeling, long seed) {
+        int count = condensation.getComponentCount();
+        int[] offsets = condensation.targetOffsets;
+        int[] targets = condensation.targets;
+        int[] order = roots.clone();
+        Random random = new Random(seed);
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        int[] stack = new int[count];
+        int[] visitedSuccessors = new int[count];
+        boolean[] visited = new boolean[count];
+        int[] low = new int[count];
+        Arrays.fill(low, Integer.MAX_VALUE);
+        int rank = 0;
+        for (int root : order) {
+            int size = 0;
+            stack[size++] = root;
+            visited[root] = true;
+            while (size > 0) {
+                int c = stack[size - 1];
+                int degree = offsets[c + 1] - offsets[c];
+                if (visitedSuccessors[c] < degree) {
+                    int first = (int) (((c * 0x9E3779B97F4A7C15L) ^ seed) >>> 33) % degree;
+                    int successor = targets[offsets[c] + (first + visitedSuccessors[c]++) % degree];
+                    if (!visited[successor]) {
+                        visited[successor] = true;
+                        stack[size++] = successor;
+                    } else {
+                        low[c] = Math.min(low[c], low[successor]);
+                    }
+                    continue;
+                }
+                size--;
+                rank++;
+                low[c] = Math.min(low[c], rank);
+                labels[2 * (c * labelings + labeling)] = low[c];
+                labels[2 * (c * labelings + labeling) + 1] = rank;
+                if (size > 0) {
+                    int parent = stack[size - 1];
+                    low[parent] = Math.min(low[parent], low[c]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the condensation of the graph.
+     *
+     * @return The condensation of the graph.
+     */
+    public Condensation<ID> getCondensation() {
+        return condensation;
+    }
+
+    /**
+     * Returns the number of labelings.
+     *
+     * @return The number of labelings.
+     */
+    public int getLabelings() {
+        return labelings;
+    }
+
+    /**
+     * Checks if there is a path from a node to another one. Every node reaches
+     * itself.
+     *
+     * @param source The index of the source node in the graph.
+     * @param target The index of the target node in the graph.
+     * @return true if target can be reached from source.
+     * @throws NoSuchElementException if any of the nodes is not in the graph.
+     */
+    public boolean reaches(int source, int target) {
+        int from = condensation.componentOf(source);
+        int to = condensation.componentOf(target);
+        if (from == to) {
+            return true;
+        }
+        if (!mayReach(from, to)) {
+            return false;
+        }
+        // Search the descendants of from that may reach to
+        BitSet visited = new BitSet();
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = from;
+        visited.set(from);
+        while (size > 0) {
+            int c = stack[--size];
+            for (int i = condensation.targetOffsets[c]; i < condensation.targetOffsets[c + 1]; i++) {
+                int successor = condensation.targets[i];
+                if (successor == to) {
+                    return true;
+                }
+                if (!visited.get(successor) && mayReach(successor, to)) {
+                    visited.set(successor);
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * size);
+                    }
+                    stack[size++] = successor;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if there is a path from a node to another one. Every node reaches
+     * itself.
+     *
+     * @param source The source node.
+     * @param target The target node.
+     * @return true if target can be reached from source.
+     * @throws NoSuchElementException if any of the nodes is not in the graph.
+     */
+    public boolean reaches(ID source, ID target) {
+        return reaches(indexOf(source), indexOf(target));
+    }
+
+    /**
+     * Checks if a component may reach a different one: false if it is known
+     * that it does not.
+     */
+    private boolean mayReach(int from, int to) {
+        // Components are numbered topologically, and paths go to higher layers
+        if (from > to || condensation.layers[from] >= condensation.layers[to]) {
+            return false;
+        }
+        int f = 2 * from * labelings;
+        int t = 2 * to * labelings;
+        for (int i = 0; i < 2 * labelings; i += 2) {
+            if (labels[t + i] < labels[f + i] || labels[t + i + 1] > labels[f + i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(ID node) {
+        int index = condensation.getGraph().indexOf(node);
+        if (index == -1) {
+            throw new NoSuchElementException(String.format("This graph does not contain node %s", node));
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.IntCursor;
+
+/**
+ * The strongly connected components of a directed graph, computed with an
+ * iterative version of Tarjan's algorithm in O(n+m) time. Components are
+ * numbered in topological order: edges between different components always go
+ * from a lower to a higher component.
+ */
+public final class StronglyConnectedComponents {
+
+    /**
+     * The component of each node, by index in the graph, or -1 for indexes
+     * not in the graph.
+     */
+    final int[] componentOf;
+    /**
+     * The nodes of component c are in nodes[offsets[c]] (inclusive) to
+     * nodes[offsets[c+1]] (exclusive), in ascending order.
+     */
+    final int[] offsets;
+    final int[] nodes;
+
+    private StronglyConnectedComponents(int[] componentOf, int[] offsets, int[] nodes) {
+        this.componentOf = componentOf;
+        this.offsets = offsets;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Computes the strongly connected components of a graph.
+     *
+     * @param graph The graph.
+     * @return The strongly connected components of the graph.
+     */
+    public static StronglyConnectedComponents of(DirectedGraph<?> graph) {
+        int capacity = graph.getIndexCapacity();
+        int[] index = new int[capacity];
+        int[] low = new int[capacity];
+        int[] componentOf = new int[capacity];
+        Arrays.fill(index, -1);
+        Arrays.fill(componentOf, -1);
+        // The stack of Tarjan's algorithm, and the stack of the depth first search
+        int[] stack = new int[graph.getOrder()];
+        int stackSize = 0;
+        int[] path = new int[graph.getOrder()];
+        // Each frame of the search keeps the lowest successor it has not visited yet.
+        // A single cursor walks the frame on top, and is moved back to the parent after a pop
+        int[] resume = new int[graph.getOrder()];
+        IntCursor cursor = graph.successorCursor();
+        int cursorDepth = -1;
+        int depth = 0;
+        int nextIndex = 0;
+        int components = 0;
+
+        for (PrimitiveIterator.OfInt roots = graph.nodeIndexes(); roots.hasNext();) {
+            int root = roots.nextInt();
+            if (index[root] != -1) {
+                continue;
+            }
+            index[root] = low[root] = nextIndex++;
+            stack[stackSize++] = root;
+            path[depth] = root;
+            cursor.reset(root);
+            cursorDepth = depth++;
+            while (depth > 0) {
+                int node = path[depth - 1];
+                if (cursorDepth != depth - 1) {
+                    cursor.reset(node, resume[depth - 1]);
+                    cursorDepth = depth - 1;
+                }
+                int target = cursor.next();
+                if (target != IntCursor.END) {
+                    resume[depth - 1] = target + 1;
+                    if (index[target] == -1) {
+                        index[target] = low[target] = nextIndex++;
+                        stack[stackSize++] = target;
+                        path[depth] = target;
+                        cursor.reset(target);
+                        cursorDepth = depth++;
+                    } else if (componentOf[target] == -1) {
+                        // The target is in the stack
+                        low[node] = Math.min(low[node], index[target]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (low[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        componentOf[member] = components;
+                    } while (member != node);
+                    components++;
+                }
+                if (depth > 0) {
+                    int parent = path[depth - 1];
+                    low[parent] = Math.min(low[parent], low[node]);
+                }
+            }
+        }
+
+        // Tarjan's algorithm finds components in reverse topological order
+        int[] offsets = new int[components + 1];
+        for (PrimitiveIterator.OfInt it = graph.nodeIndexes(); it.hasNext();) {
+            int node = it.nextInt();
+            componentOf[node] = components - 1 - componentOf[node];
+            offsets[componentOf[node] + 1]++;
+        }
+        for (int c = 0; c < components; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] nodes = new int[graph.getOrder()];
+        int[] next = Arrays.copyOf(offsets, components);
+        for (PrimitiveIterator.OfInt it = graph.nodeIndexes(); it.hasNext();) {
+            int node = it.nextInt();
+            nodes[next[componentOf[node]]++] = node;
+        }
+        return new StronglyConnectedComponents(componentOf, offsets, nodes);
+    }
+
+    /**
+     * Returns the number of components.
+     *
+     * @return The number of components.
+     */
+    public int getCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the component of a node.
+     *
+     * @param node The index of the node in the graph.
+     * @return The component of the node.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    public int componentOf(int node) {
+        if (node < 0 || node >= componentOf.length || componentOf[node] == -1) {
+            throw new NoSuchElementException(String.format("This graph does not contain node %d", node));
+        }
+        return componentOf[node];
+    }
+
+    /**
+     * Returns the number of nodes in a component.
+     *
+     * @param component The component.
+     * @return The number of nodes in the component.
+     */
+    public int size(int component) {
+        return offsets[component + 1] - offsets[component];
+    }
+
+    /**
+     * Returns the nodes in a component.
+     *
+     * @param component The component.
+     * @return The indexes of the nodes in the component, in ascending order.
+     */
+    public int[] nodes(int component) {
+        return Arrays.copyOfRange(nodes, offsets[component], offsets[component + 1]);
+    }
+
+}
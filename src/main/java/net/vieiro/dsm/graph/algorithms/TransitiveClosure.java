@@ -0,0 +1,218 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+
+/**
+ * The reflexive transitive closure of a directed graph: which nodes can be
+ * reached from each node.
+ *
+ * Nodes are numbered in the topological order of their condensation, and
+ * each strongly connected component has a row of bits, one per node, with the
+ * nodes reachable from it. Rows are computed in reverse topological order,
+ * OR-ing the rows of the successors of each component, 64 nodes at a time.
+ * Components with the same height (the longest path to a component without
+ * successors) do not depend on each other, so each height is computed in
+ * parallel.
+ *
+ * Memory is a bit per component and node.
+ *
+ * @param <ID> The type of nodes.
+ */
+public final class TransitiveClosure<ID> {
+
+    private final Condensation<ID> condensation;
+    /**
+     * The position of each node, by index in the graph, in the topological
+     * order of the condensation.
+     */
+    private final int[] positions;
+    /**
+     * The nodes reachable from each component, by position.
+     */
+    final long[][] rows;
+    /**
+     * The number of nodes reachable from each component.
+     */
+    private final int[] counts;
+
+    private TransitiveClosure(Condensation<ID> condensation, int[] positions, long[][] rows, int[] counts) {
+        this.condensation = condensation;
+        this.positions = positions;
+        this.rows = rows;
+        this.counts = counts;
+    }
+
+    /**
+     * Computes the transitive closure of a graph, in the common pool.
+     *
+     * @param <ID> The type of nodes.
+     * @param graph The graph.
+     * @return The transitive closure.
+     */
+    public static <ID> TransitiveClosure<ID> of(DirectedGraph<ID> graph) {
+        return of(Condensation.of(graph), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the transitive closure of a graph.
+     *
+     * @param <ID> The type of nodes.
+     * @param condensation The condensation of the graph.
+     * @param pool The pool where rows are computed, or null to compute them in
+     * the calling thread.
+     * @return The transitive closure.
+     */
+    public static <ID> TransitiveClosure<ID> of(Condensation<ID> condensation, ForkJoinPool pool) {
+        DirectedGraph<ID> graph = condensation.getGraph();
+        StronglyConnectedComponents components = condensation.getComponents();
+        int count = components.getCount();
+        int[] order = condensation.topologicalOrder();
+        int[] positions = new int[graph.getIndexCapacity()];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < order.length; i++) {
+            positions[order[i]] = i;
+        }
+
+        // Group components by height, successors always have lower heights
+        int[] heights = new int[count];
+        int maxHeight = 0;
+        for (int c = count - 1; c >= 0; c--) {
+            for (int i = condensation.targetOffsets[c]; i < condensation.targetOffsets[c + 1]; i++) {
+                heights[c] = Math.max(heights[c], heights[condensation.targets[i]] + 1);
+            }
+            maxHeight = Math.max(maxHeight, heights[c]);
+        }
+        int[] levelOffsets = new int[maxHeight + 2];
+        for (int c = 0; c < count; c++) {
+            levelOffsets[heights[c] + 1]++;
+        }
+        for (int h = 0; h <= maxHeight; h++) {
+            levelOffsets[h + 1] += levelOffsets[h];
+        }
+        int[] levels = new int[count];
+        int[] next = Arrays.copyOf(levelOffsets, maxHeight + 1);
+        for (int c = 0; c < count; c++) {
+            levels[next[heights[c]]++] = c;
+        }
+
+        int words = (order.length + 63) >>> 6;
+        long[][] rows = new long[count][];
+        int[] counts = new int[count];
+        IntConsumer computeRow = c -> {
+            long[] row = new long[words];
+            setRange(row, components.offsets[c], components.offsets[c + 1]);
+            for (int i = condensation.targetOffsets[c]; i < condensation.targetOffsets[c + 1]; i++) {
+                long[] successor = rows[condensation.targets[i]];
+                for (int w = 0; w < words; w++) {
+                    row[w] |= successor[w];
+                }
+            }
+            int bits = 0;
+            for (long word : row) {
+                bits += Long.bitCount(word);
+            }
+            rows[c] = row;
+            counts[c] = bits;
+        };
+        for (int h = 0; h <= maxHeight; h++) {
+            IntStream level = IntStream.range(levelOffsets[h], levelOffsets[h + 1]).map(i -> levels[i]);
+            if (pool == null || levelOffsets[h + 1] - levelOffsets[h] < 2) {
+                level.forEach(computeRow);
+            } else {
+                pool.submit(() -> level.parallel().forEach(computeRow)).join();
+            }
+        }
+        return new TransitiveClosure<>(condensation, positions, rows, counts);
+    }
+
+    private static void setRange(long[] row, int from, int to) {
+        for (int i = from; i < to; i++) {
+            row[i >>> 6] |= 1L << i;
+        }
+    }
+
+    /**
+     * Returns the condensation of the graph.
+     *
+     * @return The condensation of the graph.
+     */
+    public Condensation<ID> getCondensation() {
+        return condensation;
+    }
+
+    /**
+     * Checks if there is a path from a node to another one. Every node reaches
+     * itself.
+     *
+     * @param source The index of the source node in the graph.
+     * @param target The index of the target node in the graph.
+     * @return true if target can be reached from source.
+     * @throws NoSuchElementException if any of the nodes is not in the graph.
+     */
+    public boolean reaches(int source, int target) {
+        int position = positionOf(target);
+        return (rows[condensation.componentOf(source)][position >>> 6] & (1L << position)) != 0;
+    }
+
+    /**
+     * Checks if there is a path from a node to another one. Every node reaches
+     * itself.
+     *
+     * @param source The source node.
+     * @param target The target node.
+     * @return true if target can be reached from source.
+     * @throws NoSuchElementException if any of the nodes is not in the graph.
+     */
+    public boolean reaches(ID source, ID target) {
+        return reaches(indexOf(source), indexOf(target));
+    }
+
+    /**
+     * Returns the number of nodes that can be reached from a node, including
+     * itself.
+     *
+     * @param node The index of the node in the graph.
+     * @return The number of nodes reachable from node.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    public int reachableCount(int node) {
+        return counts[condensation.componentOf(node)];
+    }
+
+    private int positionOf(int node) {
+        if (node < 0 || node >= positions.length || positions[node] == -1) {
+            throw new NoSuchElementException(String.format("This graph does not contain node %d", node));
+        }
+        return positions[node];
+    }
+
+    private int indexOf(ID node) {
+        int index = condensation.getGraph().indexOf(node);
+        if (index == -1) {
+            throw new NoSuchElementException(String.format("This graph does not contain node %s", node));
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+
+/**
+ * Visibility metrics of a graph, as defined in "MacCormack, A., Rusnak, J. and
+ * Baldwin, C.Y. (2006) Exploring the Structure of Complex Software Designs: An
+ * Empirical Study of Open Source and Proprietary Code. Management Science, 52
+ * (7). pp. 1015-1030." and the core/periphery classification of "Baldwin, C.,
+ * MacCormack, A. and Rusnak, J. (2014) Hidden structure: Using network
+ * methods to map system architecture. Research Policy, 43 (8). pp.
+ * 1381-1397."
+ *
+ * The visibility fan-out (VFO) of a node is the number of nodes it reaches,
+ * and its visibility fan-in (VFI) the number of nodes that reach it, both
+ * including itself. The propagation cost is the density of the visibility
+ * matrix. Nodes are classified comparing their VFI and VFO with those of the
+ * largest cyclic group, or with the medians if the graph has no cycles.
+ *
+ * Fan-outs are popcounts of the rows of the transitive closure, fan-ins are
+ * computed in parallel over disjoint ranges of columns.
+ *
+ * @param <ID> The type of nodes.
+ */
+public final class VisibilityMetrics<ID> {
+
+    /**
+     * The categories of nodes.
+     */
+    public static enum Category {
+        /**
+         * High VFI and high VFO: nodes in (or as coupled as) the largest cyclic
+         * group.
+         */
+        CORE,
+        /**
+         * High VFI and low VFO: nodes used by many others.
+         */
+        SHARED,
+        /**
+         * Low VFI and high VFO: nodes that use many others.
+         */
+        CONTROL,
+        /**
+         * Low VFI and low VFO.
+         */
+        PERIPHERY,
+    };
+
+    /**
+     * The number of words of each row processed together when computing
+     * fan-ins.
+     */
+    private static final int WORDS_PER_TASK = 16;
+
+    private final TransitiveClosure<ID> closure;
+    private final int[] fanIn;
+    private final int[] fanOut;
+    private final double propagationCost;
+    private final int largestCyclicGroup;
+    private final int fanInThreshold;
+    private final int fanOutThreshold;
+
+    private VisibilityMetrics(TransitiveClosure<ID> closure, int[] fanIn, int[] fanOut, double propagationCost,
+            int largestCyclicGroup, int fanInThreshold, int fanOutThreshold) {
+        this.closure = closure;
+        this.fanIn = fanIn;
+        this.fanOut = fanOut;
+        this.propagationCost = propagationCost;
+        this.largestCyclicGroup = largestCyclicGroup;
+        this.fanInThreshold = fanInThreshold;
+        this.fanOutThreshold = fanOutThreshold;
+    }
+
+    /**
+     * Computes the metrics of a graph, in the common pool.
+     *
+     * @param <ID> The type of nodes.
+     * @param graph The graph.
+     * @return The metrics.
+     */
+    public static <ID> VisibilityMetrics<ID> of(DirectedGraph<ID> graph) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return of(TransitiveClosure.of(Condensation.of(graph), pool), pool);
+    }
+
+    /**
+     * Computes the metrics of a graph.
+     *
+     * @param <ID> The type of nodes.
+     * @param closure The transitive closure of the graph.
+     * @param pool The pool where fan-ins are computed, or null to compute them
+     * in the calling thread.
+     * @return The metrics.
+     */
+    public static <ID> VisibilityMetrics<ID> of(TransitiveClosure<ID> closure, ForkJoinPool pool) {
+        Condensation<ID> condensation = closure.getCondensation();
+        StronglyConnectedComponents components = condensation.getComponents();
+        int count = components.getCount();
+        int n = components.nodes.length;
+        long[][] rows = closure.rows;
+
+        // Fan-in by position: the sizes of the components whose rows have the bit set
+        int[] fanInByPosition = new int[n];
+        int words = (n + 63) >>> 6;
+        IntConsumer columns = task -> {
+            int from = task * WORDS_PER_TASK;
+            int to = Math.min(words, from + WORDS_PER_TASK);
+            for (int c = 0; c < count; c++) {
+                int size = components.size(c);
+                long[] row = rows[c];
+                for (int w = from; w < to; w++) {
+                    for (long word = row[w]; word != 0; word &= word - 1) {
+                        fanInByPosition[(w << 6) + Long.numberOfTrailingZeros(word)] += size;
+                    }
+                }
+            }
+        };
+        int tasks = (words + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+        if (pool == null || tasks < 2) {
+            IntStream.range(0, tasks).forEach(columns);
+        } else {
+            pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(columns)).join();
+        }
+
+        // All nodes in a component have the same fan-in and fan-out
+        int[] fanIn = new int[count];
+        int[] fanOut = new int[count];
+        long visibility = 0;
+        int largestCyclicGroup = -1;
+        for (int c = 0; c < count; c++) {
+            fanIn[c] = fanInByPosition[components.offsets[c]];
+            fanOut[c] = closure.reachableCount(components.nodes[components.offsets[c]]);
+            visibility += (long) components.size(c) * fanOut[c];
+            if (components.size(c) > 1
+                    && (largestCyclicGroup == -1 || components.size(c) > components.size(largestCyclicGroup))) {
+                largestCyclicGroup = c;
+            }
+        }
+        double propagationCost = n == 0 ? 0 : visibility / ((double) n * n);
+
+        int fanInThreshold;
+        int fanOutThreshold;
+        if (largestCyclicGroup != -1) {
+            fanInThreshold = fanIn[largestCyclicGroup];
+            fanOutThreshold = fanOut[largestCyclicGroup];
+        } else {
+            fanInThreshold = median(fanIn, components);
+            fanOutThreshold = median(fanOut, components);
+        }
+        return new VisibilityMetrics<>(closure, fanIn, fanOut, propagationCost,
+                largestCyclicGroup, fanInThreshold, fanOutThreshold);
+    }
+
+    /**
+     * Computes the median of the values of all nodes, given the values of
+     * their components.
+     */
+    private static int median(int[] byComponent, StronglyConnectedComponents components) {
+        int n = components.nodes.length;
+        if (n == 0) {
+            return 0;
+        }
+        int[] values = new int[n];
+        for (int c = 0; c < byComponent.length; c++) {
+            Arrays.fill(values, components.offsets[c], components.offsets[c + 1], byComponent[c]);
+        }
+        Arrays.sort(values);
+        return values[(n - 1) / 2];
+    }
+
+    /**
+     * Returns the transitive closure the metrics were computed from.
+     *
+     * @return The transitive closure.
+     */
+    public TransitiveClosure<ID> getClosure() {
+        return closure;
+    }
+
+    /**
+     * Returns the visibility fan-in of a node.
+     *
+     * @param node The index of the node in the graph.
+     * @return The number of nodes that reach node, including itself.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    public int fanIn(int node) {
+        return fanIn[closure.getCondensation().componentOf(node)];
+    }
+
+    /**
+     * Returns the visibility fan-out of a node.
+     *
+     * @param node The index of the node in the graph.
+     * @return The number of nodes reached from node, including itself.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    public int fanOut(int node) {
+        return fanOut[closure.getCondensation().componentOf(node)];
+    }
+
+    /**
+     * Returns the category of a node.
+     *
+     * @param node The index of the node in the graph.
+     * @return The category of the node.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    public Category category(int node) {
+        int component = closure.getCondensation().componentOf(node);
+        boolean highFanIn = fanIn[component] >= fanInThreshold;
+        boolean highFanOut = fanOut[component] >= fanOutThreshold;
+        return highFanIn
+                ? (highFanOut ? Category.CORE : Category.SHARED)
+                : (highFanOut ? Category.CONTROL : Category.PERIPHERY);
+    }
+
+    /**
+     * Returns the visibility fan-in of a node.
+     *
+     * @param node The node.
+     * @return The number of nodes that reach node, including itself.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    public int fanIn(ID node) {
+        return fanIn(indexOf(node));
+    }
+
+    /**
+     * Returns the visibility fan-out of a node.
+     *
+     * @param node The node.
+     * @return The number of nodes reached from node, including itself.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    public int fanOut(ID node) {
+        return fanOut(indexOf(node));
+    }
+
+    /**
+     * Returns the category of a node.
+     *
+     * @param node The node.
+     * @return The category of the node.
+     * @throws NoSuchElementException if the node is not in the graph.
+     */
+    public Category category(ID node) {
+        return category(indexOf(node));
+    }
+
+    /**
+     * Returns the propagation cost: the fraction of pairs of nodes (a, b) such
+     * that a reaches b.
+     *
+     * @return The propagation cost, from 0 to 1.
+     */
+    public double getPropagationCost() {
+        return propagationCost;
+    }
+
+    /**
+     * Returns the size of the largest cyclic group.
+     *
+     * @return The number of nodes in the largest strongly connected component
+     * with more than one node, or 0 if the graph has no cycles.
+     */
+    public int getLargestCyclicGroupSize() {
+        return largestCyclicGroup == -1 ? 0 : closure.getCondensation().getComponents().size(largestCyclicGroup);
+    }
+
+    /**
+     * Returns the lowest VFI of core and shared nodes: the VFI of the largest
+     * cyclic group or, if there are no cycles, the median VFI.
+     *
+     * @return The lowest VFI of core and shared nodes.
+     */
+    public int getFanInThreshold() {
+        return fanInThreshold;
+    }
+
+    /**
+     * Returns the lowest VFO of core and control nodes: the VFO of the largest
+     * cyclic group or, if there are no cycles, the median VFO.
+     *
+     * @return The lowest VFO of core and control nodes.
+     */
+    public int getFanOutThreshold() {
+        return fanOutThreshold;
+    }
+
+    private int indexOf(ID node) {
+        int index = closure.getCondensation().getGraph().indexOf(node);
+        if (index == -1) {
+            throw new NoSuchElementException(String.format("This graph does not contain node %s", node));
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.IntCursor;
+
+/**
+ * Renders a DSM as comma separated values (RFC 4180), with the same layout as
+ * the Excel sheet: a header, a row per node with "X" in the columns it depends
+ * on and the number of successors, and a footer with the number of
+ * predecessors. Rows are streamed, one at a time.
+ *
+ * @param <ID> The type of nodes.
+ */
+public final class CSVRenderer<ID> implements DSMRenderer<ID> {
+
+    @Override
+    public void render(DirectedGraph<ID> graph, List<ID> order, OutputStream output) throws IOException {
+        DSMOrdering ordering = new DSMOrdering(graph, order);
+        int n = order.size();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        writer.write("Node,#");
+        for (int j = 0; j < n; j++) {
+            writer.write(',');
+            writer.write(Integer.toString(j + 1));
+        }
+        writer.write(",Successors\r\n");
+
+        IntCursor cursor = graph.successorCursor();
+        for (int i = 0; i < n; i++) {
+            DSMRow row = ordering.row(i, cursor);
+            writeField(writer, Objects.toString(order.get(i)));
+            writer.write(',');
+            writer.write(Integer.toString(i + 1));
+            int next = 0;
+            for (int j = 0; j < n; j++) {
+                writer.write(',');
+                if (next < row.columns.length && row.columns[next] == j) {
+                    writer.write('X');
+                    next++;
+                }
+            }
+            writer.write(',');
+            writer.write(Integer.toString(ordering.successors[i]));
+            writer.write("\r\n");
+        }
+
+        writer.write("Predecessors,");
+        for (int j = 0; j < n; j++) {
+            writer.write(',');
+            writer.write(Integer.toString(ordering.predecessors[j]));
+        }
+        writer.write(",\r\n");
+        writer.flush();
+    }
+
+    private static void writeField(Writer writer, String field) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < field.length() && !quoted; i++) {
+            char c = field.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+}
@@ -17,40 +17,94 @@ package net.vieiro.dsm.graph.dsm;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.poi.hssf.usermodel.HSSFPalette;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.ConditionalFormattingRule;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.PatternFormatting;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.util.Units;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
 
 import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.IntCursor;
+import net.vieiro.dsm.graph.algorithms.VisibilityMetrics;
 
 public final class DSMExcelGenerator<ID> implements Runnable {
 
     private static final Logger LOG = Logger.getLogger(DSMExcelGenerator.class.getName());
 
+    /**
+     * The file formats the generator can write.
+     */
+    public static enum Format {
+        /**
+         * The legacy Excel 97 format (.xls), built in memory. Limited to 256
+         * columns.
+         */
+        XLS,
+        /**
+         * The Office Open XML format (.xlsx), streamed to disk keeping only a
+         * window of rows in memory.
+         */
+        XLSX,
+    };
+
+    /**
+     * The number of rows kept in memory when streaming XLSX workbooks.
+     */
+    static final int ROW_WINDOW_SIZE = 100;
+    /**
+     * The number of rows computed together. Rows of a batch are computed in
+     * parallel while the rows of the previous batch are written.
+     */
+    static final int ROW_BATCH_SIZE = 256;
+    /**
+     * The approximate width of a character of the bold font used in node
+     * names, in units of the width of a character of the default font.
+     */
+    private static final double BOLD_CHARACTER_WIDTH = 1.4;
+    /**
+     * The maximum width of a column, in characters.
+     */
+    private static final int MAX_COLUMN_WIDTH = 255;
+
     private static enum Columns {
         COL_NAME, COL_ID, COL_REST,
     };
 
+    private static enum MetricsColumns {
+        COL_ID, COL_NAME, COL_FAN_IN, COL_FAN_OUT, COL_CATEGORY,
+    };
+
     private final DirectedGraph<ID> graph;
     private final List<ID> fas;
     private final List<String> names;
     private final OutputStream outputStream;
-    private final HSSFWorkbook workbook;
+    private final Workbook workbook;
     private final Sheet sheet;
     private final Font fontBold;
     private final Font fontPlain;
@@ -63,16 +117,60 @@ public final class DSMExcelGenerator<ID> implements Runnable {
     private final CellStyle cellStyle_DIAGONAL;
     private final CellStyle cellStyles_FOOTER[];
     private final int ncols;
-
+    private final DSMOrdering ordering;
+    private final int[] colors;
+    private final short[] colorIndexes;
+    private boolean sparse;
+    private boolean autoSizeColumns = true;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private VisibilityMetrics<ID> metrics;
+
+    /**
+     * Creates a generator that writes the legacy Excel 97 format, kept for
+     * compatibility with existing callers.
+     *
+     * @param graph The graph.
+     * @param fas The nodes of the graph, in the order they are shown.
+     * @param outputStream Where the workbook is written.
+     * @throws IOException on I/O errors.
+     * @throws IllegalArgumentException if the graph has more than 253 nodes.
+     * @deprecated The XLS format is limited to 256 columns and 65536 rows, use
+     * {@link #DSMExcelGenerator(DirectedGraph, List, OutputStream, Format)}
+     * with {@link Format#XLSX} instead.
+     */
+    @Deprecated
     public DSMExcelGenerator(DirectedGraph<ID> graph, List<ID> fas, OutputStream outputStream) throws IOException {
+        this(graph, fas, outputStream, Format.XLS);
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param graph The graph.
+     * @param fas The nodes of the graph, in the order they are shown.
+     * @param outputStream Where the workbook is written.
+     * @param format The format of the workbook.
+     * @throws IOException on I/O errors.
+     * @throws IllegalArgumentException if the graph has more nodes than
+     * columns in the format.
+     */
+    public DSMExcelGenerator(DirectedGraph<ID> graph, List<ID> fas, OutputStream outputStream, Format format) throws IOException {
         this.graph = graph;
         this.fas = fas;
         this.names = this.fas.stream().map(Objects::toString).collect(Collectors.toList());
         this.ncols = fas.size();
+        this.ordering = new DSMOrdering(graph, fas);
 
         this.outputStream = outputStream;
 
-        this.workbook = new HSSFWorkbook();
+        this.workbook = format == Format.XLS ? new HSSFWorkbook() : new SXSSFWorkbook(ROW_WINDOW_SIZE);
+        int maxColumns = workbook.getSpreadsheetVersion().getMaxColumns();
+        if (Columns.COL_REST.ordinal() + ncols + 1 > maxColumns) {
+            workbook.close();
+            throw new IllegalArgumentException(
+                    String.format("Too many nodes (%d) for the %s format, the maximum is %d",
+                            ncols, format, maxColumns - Columns.COL_REST.ordinal() - 1));
+        }
 
         this.sheet = workbook.createSheet();
         for (int i = 0; i < ncols + 1; i++) {
@@ -99,20 +197,17 @@ public final class DSMExcelGenerator<ID> implements Runnable {
         fontPlain.setFontHeightInPoints((short) 11);
         fontPlain.setBold(false);
 
-        // Colors
-        HSSFColor lightGray = getColor(IndexedColors.GREY_25_PERCENT.index, 0xFAFAFA);
-
         // Header name style (aligned to right)
         cellStyle_HEADER_NAME = workbook.createCellStyle();
         cellStyle_HEADER_NAME.setAlignment(HorizontalAlignment.RIGHT);
-        cellStyle_HEADER_NAME.setFillForegroundColor(lightGray.getIndex());
+        setFillColor(cellStyle_HEADER_NAME, IndexedColors.GREY_25_PERCENT.index, 0xFAFAFA);
         cellStyle_HEADER_NAME.setFillPattern(FillPatternType.SOLID_FOREGROUND);
         cellStyle_HEADER_NAME.setFont(fontPlain);
 
         // Header style (aligned center)
         cellStyle_HEADER_OTHER = workbook.createCellStyle();
         cellStyle_HEADER_OTHER.setAlignment(HorizontalAlignment.CENTER);
-        cellStyle_HEADER_OTHER.setFillForegroundColor(lightGray.getIndex());
+        setFillColor(cellStyle_HEADER_OTHER, IndexedColors.GREY_25_PERCENT.index, 0xFAFAFA);
         cellStyle_HEADER_OTHER.setFillPattern(FillPatternType.SOLID_FOREGROUND);
         cellStyle_HEADER_OTHER.setFont(fontPlain);
 
@@ -124,11 +219,10 @@ public final class DSMExcelGenerator<ID> implements Runnable {
         cellStyle_DIAGONAL.setFont(fontPlain);
 
 
-        // Some light background colors
-        short[] colors = {getColor(IndexedColors.AQUA.index, 0xE8F5E9).getIndex(),
-            getColor(IndexedColors.BLUE.index, 0xC8E6C9).getIndex(),
-            getColor(IndexedColors.BLUE_GREY.index, 0xA5D6A7).getIndex(),
-            getColor(IndexedColors.BRIGHT_GREEN.index, 0x81C784).getIndex(),};
+        // Some light background colors, and the palette entries they replace in XLS workbooks
+        colors = new int[]{0xE8F5E9, 0xC8E6C9, 0xA5D6A7, 0x81C784};
+        colorIndexes = new short[]{IndexedColors.AQUA.index, IndexedColors.BLUE.index,
+            IndexedColors.BLUE_GREY.index, IndexedColors.BRIGHT_GREEN.index};
 
         // Different (rotating) cell styles with different background colors
         cellStyles = new CellStyle[colors.length];
@@ -141,30 +235,30 @@ public final class DSMExcelGenerator<ID> implements Runnable {
             cellStyles[i] = workbook.createCellStyle();
             cellStyles[i].setAlignment(HorizontalAlignment.CENTER);
             cellStyles[i].setFont(fontBold);
-            cellStyles[i].setFillForegroundColor(colors[i]);
+            setFillColor(cellStyles[i], colorIndexes[i], colors[i]);
             cellStyles[i].setFillPattern(FillPatternType.SOLID_FOREGROUND);
 
             cellStyles_NAMES[i] = workbook.createCellStyle();
             cellStyles_NAMES[i].setAlignment(HorizontalAlignment.RIGHT);
             cellStyles_NAMES[i].setFont(fontBold);
-            cellStyles_NAMES[i].setFillForegroundColor(colors[i]);
+            setFillColor(cellStyles_NAMES[i], colorIndexes[i], colors[i]);
             cellStyles_NAMES[i].setFillPattern(FillPatternType.SOLID_FOREGROUND);
 
             cellStyles_NAMES_LEFT[i] = workbook.createCellStyle();
             cellStyles_NAMES_LEFT[i].setAlignment(HorizontalAlignment.LEFT);
             cellStyles_NAMES_LEFT[i].setFont(fontPlain);
-            cellStyles_NAMES_LEFT[i].setFillForegroundColor(colors[i]);
+            setFillColor(cellStyles_NAMES_LEFT[i], colorIndexes[i], colors[i]);
             cellStyles_NAMES_LEFT[i].setFillPattern(FillPatternType.SOLID_FOREGROUND);
 
             cellStyles_IDS[i] = workbook.createCellStyle();
             cellStyles_IDS[i].setAlignment(HorizontalAlignment.CENTER);
             cellStyles_IDS[i].setFont(fontBold);
-            cellStyles_IDS[i].setFillForegroundColor(colors[i]);
+            setFillColor(cellStyles_IDS[i], colorIndexes[i], colors[i]);
             cellStyles_IDS[i].setFillPattern(FillPatternType.SOLID_FOREGROUND);
 
             cellStyles_FOOTER[i] = workbook.createCellStyle();
             cellStyles_FOOTER[i].setAlignment(HorizontalAlignment.CENTER);
-            cellStyles_FOOTER[i].setFillForegroundColor(colors[i]);
+            setFillColor(cellStyles_FOOTER[i], colorIndexes[i], colors[i]);
             cellStyles_FOOTER[i].setFillPattern(FillPatternType.SOLID_FOREGROUND);
             cellStyles_FOOTER[i].setFont(fontPlain);
 
@@ -172,11 +266,30 @@ public final class DSMExcelGenerator<ID> implements Runnable {
 
     }
 
+    /**
+     * Sets the fill color of a style. XSSF styles take the color itself, HSSF
+     * styles take an index in the palette.
+     *
+     * @param style The style.
+     * @param index The palette entry to replace with the color in HSSF
+     * workbooks, if the color is not in the palette already.
+     * @param rgb The color.
+     */
+    private void setFillColor(CellStyle style, short index, int rgb) {
+        if (style instanceof XSSFCellStyle) {
+            byte[] bytes = {(byte) ((rgb >> 16) & 0xFF), (byte) ((rgb >> 8) & 0xFF), (byte) (rgb & 0xFF)};
+            ((XSSFCellStyle) style).setFillForegroundColor(new XSSFColor(bytes, null));
+        } else {
+            HSSFColor color = getColor(index, rgb);
+            style.setFillForegroundColor(color == null ? index : color.getIndex());
+        }
+    }
+
     private HSSFColor getColor(short index, int rgb) {
         byte r = (byte) ((rgb >> 16) & 0xFF);
         byte g = (byte) ((rgb >> 8) & 0xFF);
         byte b = (byte) (rgb & 0xFF);
-        HSSFPalette palette = workbook.getCustomPalette();
+        HSSFPalette palette = ((HSSFWorkbook) workbook).getCustomPalette();
         HSSFColor hssfColor = null;
         try {
             hssfColor = palette.findColor(r, g, b);
@@ -191,32 +304,326 @@ public final class DSMExcelGenerator<ID> implements Runnable {
         return hssfColor;
     }
 
+    /**
+     * Checks if only the cells with dependencies and the diagonal are
+     * created.
+     *
+     * @return true if only the cells with dependencies and the diagonal are
+     * created.
+     */
+    public boolean isSparse() {
+        return sparse;
+    }
+
+    /**
+     * Sets the rendering mode of the matrix. Dense matrices have a styled cell
+     * for each pair of nodes. Sparse matrices only have cells for dependencies
+     * and the diagonal, the background bands of the rest are drawn with
+     * conditional formatting. Sparse matrices are much smaller and faster to
+     * generate, and look the same. Dense is the default.
+     *
+     * @param sparse true to render sparse matrices.
+     */
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
+    /**
+     * Checks if the widths of the name and successors columns are measured
+     * with the fonts in the workbook.
+     *
+     * @return true if columns are autosized.
+     */
+    public boolean isAutoSizeColumns() {
+        return autoSizeColumns;
+    }
+
+    /**
+     * Sets how the widths of the name and successors columns are computed.
+     * Autosizing lays out the text of every cell with AWT font metrics, which
+     * is slow on big sheets and requires fonts to be installed. Otherwise the
+     * widths are estimated from the longest node name and a fixed character
+     * width. Autosizing is the default.
+     *
+     * @param autoSizeColumns true to autosize columns, false to estimate their
+     * widths.
+     */
+    public void setAutoSizeColumns(boolean autoSizeColumns) {
+        this.autoSizeColumns = autoSizeColumns;
+    }
+
+    /**
+     * Returns the pool where rows are computed.
+     *
+     * @return The pool where rows are computed, or null if they are computed
+     * in the thread that writes the workbook.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool where rows are computed. Rows are computed in batches, in
+     * parallel, and written in order by the thread that invokes
+     * {@link #run()}, which is the only one that touches the workbook. The
+     * common pool is used by default.
+     *
+     * @param pool The pool, or null to compute rows in the thread that writes
+     * the workbook.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the metrics shown in the "Metrics" sheet.
+     *
+     * @return The metrics, or null if the workbook has no "Metrics" sheet.
+     */
+    public VisibilityMetrics<ID> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics shown in a "Metrics" sheet, after the matrix: the
+     * visibility fan-in, fan-out and category of each node, in the order of
+     * the matrix, and the propagation cost of the graph.
+     *
+     * @param metrics The metrics of the graph, or null for no "Metrics" sheet,
+     * the default.
+     */
+    public void setMetrics(VisibilityMetrics<ID> metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Generates the workbook and writes it, logging any errors. Use
+     * {@link #generate()} to handle them instead.
+     *
+     * @throws UncheckedIOException on I/O errors.
+     */
     @Override
     public void run() {
         try {
-            generateExcel();
-            sheet.autoSizeColumn(Columns.COL_NAME.ordinal());
-            sheet.autoSizeColumn(Columns.COL_REST.ordinal() + fas.size());
-            workbook.write(outputStream);
-        } catch (Exception e) {
+            generate();
+        } catch (IOException e) {
             LOG.log(Level.SEVERE,
                     String.format("Error generating workbook: %s (%s)", e.getMessage(), e.getClass().getName()), e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates the workbook and writes it to the output stream.
+     *
+     * @throws IOException on I/O errors.
+     */
+    public void generate() throws IOException {
+        try {
+            generateExcel();
+            if (autoSizeColumns) {
+                sheet.autoSizeColumn(Columns.COL_NAME.ordinal());
+                sheet.autoSizeColumn(Columns.COL_REST.ordinal() + fas.size());
+            } else {
+                estimateColumnWidths();
+            }
+            if (metrics != null) {
+                createMetricsSheet();
+            }
+            workbook.write(outputStream);
         } finally {
-            // HSSFWorkbooks only:
-            // workbook.dispose();
+            if (workbook instanceof SXSSFWorkbook) {
+                // Remove the temporary files of the streamed rows
+                ((SXSSFWorkbook) workbook).dispose();
+            }
         }
     }
 
-    public void generateExcel() throws Exception {
+    /**
+     * Sets the widths of the name and successors columns from the length of
+     * their longest texts.
+     */
+    private void estimateColumnWidths() {
+        int longestName = 0;
+        for (String name : names) {
+            longestName = Math.max(longestName, name.length());
+        }
+        double nameWidth = Math.max("Predecessors".length(), BOLD_CHARACTER_WIDTH * longestName);
+        sheet.setColumnWidth(Columns.COL_NAME.ordinal(), columnWidth(nameWidth));
+        int longestCount = Integer.toString(ordering.maxSuccessors()).length();
+        double successorsWidth = Math.max("Successors".length(), longestCount);
+        sheet.setColumnWidth(Columns.COL_REST.ordinal() + fas.size(), columnWidth(successorsWidth));
+    }
+
+    /**
+     * Creates the "Metrics" sheet, with a row per node and a summary of the
+     * graph after them.
+     */
+    private void createMetricsSheet() {
+        Sheet metricsSheet = workbook.createSheet("Metrics");
+        metricsSheet.createFreezePane(0, 1);
+        CellStyle percentage = workbook.createCellStyle();
+        percentage.setDataFormat(workbook.createDataFormat().getFormat("0.00%"));
+
+        int rowIndex = 0;
+        Row headerRow = metricsSheet.createRow(rowIndex++);
+        String[] headers = {"#", "Node", "VFI", "VFO", "Category"};
+        for (MetricsColumns column : MetricsColumns.values()) {
+            Cell cell = headerRow.createCell(column.ordinal());
+            cell.setCellStyle(column == MetricsColumns.COL_NAME ? cellStyle_HEADER_NAME : cellStyle_HEADER_OTHER);
+            cell.setCellValue(headers[column.ordinal()]);
+        }
+
+        for (int i = 0; i < ncols; i++) {
+            ID node = fas.get(i);
+            Row row = metricsSheet.createRow(rowIndex++);
+            row.createCell(MetricsColumns.COL_ID.ordinal()).setCellValue(i + 1);
+            Cell nameCell = row.createCell(MetricsColumns.COL_NAME.ordinal());
+            nameCell.setCellStyle(cellStyles_NAMES_LEFT[i % cellStyles_NAMES_LEFT.length]);
+            nameCell.setCellValue(names.get(i));
+            row.createCell(MetricsColumns.COL_FAN_IN.ordinal()).setCellValue(metrics.fanIn(node));
+            row.createCell(MetricsColumns.COL_FAN_OUT.ordinal()).setCellValue(metrics.fanOut(node));
+            row.createCell(MetricsColumns.COL_CATEGORY.ordinal()).setCellValue(metrics.category(node).name());
+        }
+
+        rowIndex++;
+        Row costRow = metricsSheet.createRow(rowIndex++);
+        costRow.createCell(MetricsColumns.COL_NAME.ordinal()).setCellValue("Propagation cost");
+        Cell cost = costRow.createCell(MetricsColumns.COL_FAN_IN.ordinal());
+        cost.setCellStyle(percentage);
+        cost.setCellValue(metrics.getPropagationCost());
+        Row groupRow = metricsSheet.createRow(rowIndex++);
+        groupRow.createCell(MetricsColumns.COL_NAME.ordinal()).setCellValue("Largest cyclic group");
+        groupRow.createCell(MetricsColumns.COL_FAN_IN.ordinal()).setCellValue(metrics.getLargestCyclicGroupSize());
+        Row thresholdsRow = metricsSheet.createRow(rowIndex++);
+        thresholdsRow.createCell(MetricsColumns.COL_NAME.ordinal()).setCellValue(
+                metrics.getLargestCyclicGroupSize() == 0 ? "Median VFI, VFO" : "Core VFI, VFO");
+        thresholdsRow.createCell(MetricsColumns.COL_FAN_IN.ordinal()).setCellValue(metrics.getFanInThreshold());
+        thresholdsRow.createCell(MetricsColumns.COL_FAN_OUT.ordinal()).setCellValue(metrics.getFanOutThreshold());
+
+        int longestName = "Largest cyclic group".length();
+        for (String name : names) {
+            longestName = Math.max(longestName, name.length());
+        }
+        metricsSheet.setColumnWidth(MetricsColumns.COL_ID.ordinal(), columnWidth(Integer.toString(ncols).length()));
+        metricsSheet.setColumnWidth(MetricsColumns.COL_NAME.ordinal(), columnWidth(longestName));
+        metricsSheet.setColumnWidth(MetricsColumns.COL_FAN_IN.ordinal(), columnWidth(8));
+        metricsSheet.setColumnWidth(MetricsColumns.COL_FAN_OUT.ordinal(), columnWidth(8));
+        metricsSheet.setColumnWidth(MetricsColumns.COL_CATEGORY.ordinal(), columnWidth("PERIPHERY".length()));
+    }
+
+    /**
+     * Computes the width of a column, in 1/256th of a character, with room for
+     * a character of padding.
+     */
+    private static int columnWidth(double characters) {
+        return (int) Math.min(MAX_COLUMN_WIDTH, Math.ceil(characters) + 1) * 256;
+    }
+
+    public void generateExcel() throws IOException {
+        if (autoSizeColumns && sheet instanceof SXSSFSheet) {
+            // Rows are flushed to disk while generating, so columns are measured then
+            ((SXSSFSheet) sheet).trackColumnForAutoSizing(Columns.COL_NAME.ordinal());
+            ((SXSSFSheet) sheet).trackColumnForAutoSizing(Columns.COL_REST.ordinal() + ncols);
+        }
         int rowIndex = 0;
         createHeaderRow(rowIndex++);
-        for (int i = 0; i < fas.size(); i++) {
-            Row nodeRow = sheet.createRow(rowIndex++);
-            createNodeRow(i, nodeRow);
+        if (sparse) {
+            createBackgroundBands();
+        }
+        boolean[] connects = new boolean[fas.size()];
+        ForkJoinTask<DSMRow[]> nextBatch = computeRows(0);
+        while (nextBatch != null) {
+            DSMRow[] batch = nextBatch.join();
+            // Compute the next batch while this one is written
+            nextBatch = computeRows(batch[batch.length - 1].position + 1);
+            for (DSMRow nodeRow : batch) {
+                Row row = sheet.createRow(rowIndex++);
+                if (sparse) {
+                    createSparseNodeRow(nodeRow, row);
+                } else {
+                    for (int column : nodeRow.columns) {
+                        connects[column] = true;
+                    }
+                    createNodeRow(nodeRow.position, row, connects);
+                    for (int column : nodeRow.columns) {
+                        connects[column] = false;
+                    }
+                }
+            }
         }
         createFooterRow(rowIndex++);
     }
 
+    /**
+     * Computes a batch of rows, in the pool if any.
+     *
+     * @param start The first row of the batch.
+     * @return The batch, or null if there are no more rows.
+     */
+    private ForkJoinTask<DSMRow[]> computeRows(int start) {
+        if (start >= fas.size()) {
+            return null;
+        }
+        int end = Math.min(fas.size(), start + ROW_BATCH_SIZE);
+        if (pool == null) {
+            ForkJoinTask<DSMRow[]> task = ForkJoinTask.adapt(() -> {
+                IntCursor cursor = graph.successorCursor();
+                DSMRow[] batch = new DSMRow[end - start];
+                for (int i = start; i < end; i++) {
+                    batch[i - start] = ordering.row(i, cursor);
+                }
+                return batch;
+            });
+            task.invoke();
+            return task;
+        }
+        return pool.submit(() -> {
+            DSMRow[] batch = new DSMRow[end - start];
+            // Cursors are not thread safe, so the batch is split in a range of rows per worker, each with its own cursor
+            int ranges = Math.min(end - start, pool.getParallelism());
+            IntStream.range(0, ranges).parallel().forEach(range -> {
+                IntCursor cursor = graph.successorCursor();
+                int first = start + (end - start) * range / ranges;
+                int last = start + (end - start) * (range + 1) / ranges;
+                for (int i = first; i < last; i++) {
+                    batch[i - start] = ordering.row(i, cursor);
+                }
+            });
+            return batch;
+        });
+    }
+
+    /**
+     * Paints the background of the cells of the matrix (but the diagonal)
+     * with one conditional formatting per color. Cells in row i and column j
+     * take the color of max(i, j), as in dense matrices.
+     */
+    private void createBackgroundBands() {
+        if (ncols == 0) {
+            return;
+        }
+        int firstRow = 1;
+        int firstColumn = Columns.COL_REST.ordinal();
+        CellRangeAddress[] matrix = {
+            new CellRangeAddress(firstRow, firstRow + ncols - 1, firstColumn, firstColumn + ncols - 1)
+        };
+        // ROW() and COLUMN() are 1-based
+        String row = "(ROW()-" + (firstRow + 1) + ")";
+        String column = "(COLUMN()-" + (firstColumn + 1) + ")";
+        SheetConditionalFormatting formatting = sheet.getSheetConditionalFormatting();
+        for (int i = 0; i < colors.length; i++) {
+            String formula = String.format("AND(%s<>%s,MOD(MAX(%s,%s),%d)=%d)",
+                    row, column, row, column, colors.length, i);
+            ConditionalFormattingRule rule = formatting.createConditionalFormattingRule(formula);
+            PatternFormatting fill = rule.createPatternFormatting();
+            fill.setFillBackgroundColor(cellStyles[i].getFillForegroundColorColor());
+            fill.setFillPattern(PatternFormatting.SOLID_FOREGROUND);
+            // One formatting per rule, HSSF allows at most three rules per formatting
+            formatting.addConditionalFormatting(matrix, rule);
+        }
+    }
+
     private void createFooterRow(int rowIndex) {
         Row footerRow = sheet.createRow(rowIndex);
         Cell usedByName = footerRow.createCell(0);
@@ -226,16 +633,11 @@ public final class DSMExcelGenerator<ID> implements Runnable {
             Cell connectsCell = footerRow.createCell(Columns.COL_REST.ordinal() + j);
             CellStyle style = cellStyles_FOOTER[j % cellStyles.length];
             connectsCell.setCellStyle(style);
-            int usedByCount = 0;
-            for (int index = 0; index < fas.size(); index++) {
-                boolean connects = graph.connects(fas.get(index), fas.get(j));
-                usedByCount += connects ? 1 : 0;
-            }
-            connectsCell.setCellValue("" + usedByCount);
+            connectsCell.setCellValue("" + ordering.predecessors[j]);
         }
     }
 
-    private void createNodeRow(int index, Row row) {
+    private void createNodeRow(int index, Row row, boolean[] connects) {
         CellStyle style_name = cellStyles_NAMES[index % cellStyles_NAMES.length];
         CellStyle style_id = cellStyles_IDS[index % cellStyles_IDS.length];
 
@@ -250,7 +652,6 @@ public final class DSMExcelGenerator<ID> implements Runnable {
         final String arrowUp = "X"; // "\u21d1";
         final String diagonal = ""; // "\u21d4";
 
-        int dependsOnCount = 0;
         for (int j = 0; j < fas.size(); j++) {
             Cell connectsCell = row.createCell(Columns.COL_REST.ordinal() + j);
             if (j == index) {
@@ -259,20 +660,43 @@ public final class DSMExcelGenerator<ID> implements Runnable {
             } else {
                 CellStyle style = index < j ? cellStyles[j % cellStyles.length] : cellStyles[index % cellStyles.length];
                 connectsCell.setCellStyle(style);
-                boolean connects = graph.connects(fas.get(index), fas.get(j));
-                if (connects) {
+                if (connects[j]) {
                     connectsCell.setCellValue(arrowUp);
-                    dependsOnCount++;
                 }
             }
         }
         Cell dependsOnCell = row.createCell(Columns.COL_REST.ordinal() + fas.size());
         CellStyle style_name_left = cellStyles_NAMES_LEFT[index % cellStyles_NAMES.length];
         dependsOnCell.setCellStyle(style_name_left);
-        dependsOnCell.setCellValue("" + dependsOnCount);
+        dependsOnCell.setCellValue("" + ordering.successors[index]);
 
     }
 
+    private void createSparseNodeRow(DSMRow nodeRow, Row row) {
+        int index = nodeRow.position;
+        Cell nameCell = row.createCell(Columns.COL_NAME.ordinal());
+        nameCell.setCellStyle(cellStyles_NAMES[index % cellStyles_NAMES.length]);
+        nameCell.setCellValue(names.get(index));
+
+        Cell idCell = row.createCell(Columns.COL_ID.ordinal());
+        idCell.setCellStyle(cellStyles_IDS[index % cellStyles_IDS.length]);
+        idCell.setCellValue("" + (index + 1));
+
+        Cell diagonalCell = row.createCell(Columns.COL_REST.ordinal() + index);
+        diagonalCell.setCellValue("");
+        diagonalCell.setCellStyle(cellStyle_DIAGONAL);
+
+        for (int j : nodeRow.columns) {
+            Cell connectsCell = row.createCell(Columns.COL_REST.ordinal() + j);
+            connectsCell.setCellStyle(index < j ? cellStyles[j % cellStyles.length] : cellStyles[index % cellStyles.length]);
+            connectsCell.setCellValue("X");
+        }
+
+        Cell dependsOnCell = row.createCell(Columns.COL_REST.ordinal() + fas.size());
+        dependsOnCell.setCellStyle(cellStyles_NAMES_LEFT[index % cellStyles_NAMES.length]);
+        dependsOnCell.setCellValue("" + ordering.successors[index]);
+    }
+
     private void createHeaderRow(int row) {
         // Create header row
         Row headerRow = sheet.createRow(row);
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.IntCursor;
+
+/**
+ * The position of each node of a graph in a DSM, with the number of
+ * successors and predecessors of each position, so that totals are O(1) and
+ * rows can be rendered from the successors of each node instead of testing
+ * every pair of nodes.
+ */
+final class DSMOrdering {
+
+    /**
+     * The index in the graph of the node at each position.
+     */
+    final int[] nodes;
+    /**
+     * The position of each node in the graph, by graph index, or -1 for nodes
+     * not in the DSM.
+     */
+    final int[] positions;
+    /**
+     * The number of successors of the node at each position, not including
+     * itself.
+     */
+    final int[] successors;
+    /**
+     * The number of predecessors of the node at each position, including
+     * itself if it has a self-loop.
+     */
+    final int[] predecessors;
+
+    /**
+     * Computes the ordering of a graph.
+     *
+     * @param <ID> The type of nodes.
+     * @param graph The graph.
+     * @param order The nodes in the DSM, in the order they are shown.
+     * @throws NoSuchElementException if a node is not in the graph.
+     */
+    <ID> DSMOrdering(DirectedGraph<ID> graph, List<ID> order) {
+        int size = order.size();
+        this.nodes = new int[size];
+        this.positions = new int[graph.getIndexCapacity()];
+        this.successors = new int[size];
+        this.predecessors = new int[size];
+        Arrays.fill(positions, -1);
+        for (int position = 0; position < size; position++) {
+            int node = graph.indexOf(order.get(position));
+            if (node == -1) {
+                throw new NoSuchElementException(String.format("This graph does not contain node %s", order.get(position)));
+            }
+            nodes[position] = node;
+            positions[node] = position;
+        }
+
+        if (size == graph.getOrder()) {
+            // All nodes are shown, so the degrees of the graph can be used as they are
+            for (int position = 0; position < size; position++) {
+                int node = nodes[position];
+                predecessors[position] = graph.inDegree(node);
+                successors[position] = graph.outDegree(node) - (graph.connects(node, node) ? 1 : 0);
+            }
+        } else {
+            IntCursor cursor = graph.successorCursor();
+            for (int position = 0; position < size; position++) {
+                cursor.reset(nodes[position]);
+                for (int target = cursor.next(); target != IntCursor.END; target = cursor.next()) {
+                    int targetPosition = positions[target];
+                    if (targetPosition != -1) {
+                        predecessors[targetPosition]++;
+                        successors[position] += targetPosition == position ? 0 : 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the columns with dependencies in a row.
+     *
+     * @param position The row.
+     * @param cursor A successor cursor of the graph.
+     * @param columns Where the columns are stored, unsorted. Must be able to
+     * hold successors[position] columns.
+     * @return The number of columns stored.
+     */
+    int row(int position, IntCursor cursor, int[] columns) {
+        int count = 0;
+        cursor.reset(nodes[position]);
+        for (int target = cursor.next(); target != IntCursor.END; target = cursor.next()) {
+            int column = positions[target];
+            if (column != -1 && column != position) {
+                columns[count++] = column;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Computes a row.
+     *
+     * @param position The row.
+     * @param cursor A successor cursor of the graph.
+     * @return The row.
+     */
+    DSMRow row(int position, IntCursor cursor) {
+        int[] columns = new int[successors[position]];
+        row(position, cursor, columns);
+        Arrays.sort(columns);
+        return new DSMRow(position, columns);
+    }
+
+    /**
+     * Returns the largest number of successors of a row.
+     *
+     * @return The largest number of successors of a row.
+     */
+    int maxSuccessors() {
+        int max = 0;
+        for (int count : successors) {
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+
+/**
+ * Renders the Dependency Structure Matrix of a graph, with its nodes in a
+ * given order (usually the one computed by
+ * {@link net.vieiro.dsm.graph.algorithms.FAS#fas(DirectedGraph)}).
+ *
+ * @param <ID> The type of nodes.
+ */
+public interface DSMRenderer<ID> {
+
+    /**
+     * Renders the DSM of a graph.
+     *
+     * @param graph The graph.
+     * @param order The nodes of the graph, in the order they are shown.
+     * @param output Where the DSM is written. It is not closed.
+     * @throws IOException on I/O errors.
+     */
+    void render(DirectedGraph<ID> graph, List<ID> order, OutputStream output) throws IOException;
+
+    /**
+     * Chooses a renderer by the extension of the output file: ".csv", ".html"
+     * (or ".htm"), ".pgm" and ".xls" have their own renderers, any other
+     * extension is rendered as an XLSX workbook. Only the Excel renderers load
+     * Apache POI.
+     *
+     * @param <ID> The type of nodes.
+     * @param fileName The name of the output file.
+     * @return The renderer.
+     */
+    static <ID> DSMRenderer<ID> forFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return new CSVRenderer<>();
+        } else if (name.endsWith(".html") || name.endsWith(".htm")) {
+            return new HTMLRenderer<>();
+        } else if (name.endsWith(".pgm")) {
+            return new PGMRenderer<>();
+        } else if (name.endsWith(".xls")) {
+            return new ExcelRenderer<>(DSMExcelGenerator.Format.XLS);
+        }
+        return new ExcelRenderer<>(DSMExcelGenerator.Format.XLSX);
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+/**
+ * The contents of a row of a DSM: the columns with dependencies. Rows are
+ * computed independently of each other, and can be computed in parallel.
+ */
+final class DSMRow {
+
+    /**
+     * The position of the row.
+     */
+    final int position;
+    /**
+     * The columns with dependencies, sorted in ascending order, not including
+     * the diagonal.
+     */
+    final int[] columns;
+
+    DSMRow(int position, int[] columns) {
+        this.position = position;
+        this.columns = columns;
+    }
+
+}
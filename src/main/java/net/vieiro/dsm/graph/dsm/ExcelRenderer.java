@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.algorithms.VisibilityMetrics;
+
+/**
+ * Renders a DSM as an Excel workbook with {@link DSMExcelGenerator}, with
+ * sparse cells and estimated column widths. A sheet with the visibility metrics
+ * of the graph is added if they are given.
+ *
+ * @param <ID> The type of nodes.
+ */
+public final class ExcelRenderer<ID> implements DSMRenderer<ID> {
+
+    private final DSMExcelGenerator.Format format;
+    private VisibilityMetrics<ID> metrics;
+
+    /**
+     * Creates an Excel renderer.
+     *
+     * @param format The format of the workbook.
+     */
+    public ExcelRenderer(DSMExcelGenerator.Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Returns the metrics shown in the "Metrics" sheet.
+     *
+     * @return The metrics, or null if workbooks have no "Metrics" sheet.
+     */
+    public VisibilityMetrics<ID> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics shown in a "Metrics" sheet. Computing them needs the
+     * transitive closure of the graph, so there is no such sheet by default.
+     *
+     * @param metrics The metrics of the rendered graph, or null for no
+     * "Metrics" sheet.
+     * @see DSMExcelGenerator#setMetrics(VisibilityMetrics)
+     */
+    public void setMetrics(VisibilityMetrics<ID> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void render(DirectedGraph<ID> graph, List<ID> order, OutputStream output) throws IOException {
+        DSMExcelGenerator<ID> generator = new DSMExcelGenerator<>(graph, order, output, format);
+        generator.setSparse(true);
+        generator.setAutoSizeColumns(false);
+        generator.setMetrics(metrics);
+        generator.generate();
+    }
+
+}
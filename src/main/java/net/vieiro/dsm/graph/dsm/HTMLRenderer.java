@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.IntCursor;
+
+/**
+ * Renders a DSM as a self-contained HTML page, with the same layout and colors
+ * as the Excel sheet. Rows are streamed, one at a time.
+ *
+ * @param <ID> The type of nodes.
+ */
+public final class HTMLRenderer<ID> implements DSMRenderer<ID> {
+
+    private static final String[] HEAD = {
+        "<!DOCTYPE html>",
+        "<html>",
+        "<head>",
+        "<meta charset=\"UTF-8\">",
+        "<title>Dependency Structure Matrix</title>",
+        "<style>",
+        "table { border-collapse: collapse; font-family: Arial, sans-serif; font-size: 11pt; }",
+        "td, th { border: 1px solid #FFFFFF; padding: 0 4px; min-width: 1.5em; height: 1.5em; text-align: center; }",
+        "thead th { position: sticky; top: 0; }",
+        "th, td.h { background: #FAFAFA; font-weight: normal; }",
+        "th.n { text-align: right; }",
+        "td.n { text-align: right; font-weight: bold; position: sticky; left: 0; }",
+        "td.i, td.x { font-weight: bold; }",
+        "td.s { text-align: left; }",
+        "td.d { background: #808080; }",
+        ".b0 { background: #E8F5E9; }",
+        ".b1 { background: #C8E6C9; }",
+        ".b2 { background: #A5D6A7; }",
+        ".b3 { background: #81C784; }",
+        "</style>",
+        "</head>",
+        "<body>",
+        "<table>",};
+    private static final int BANDS = 4;
+
+    @Override
+    public void render(DirectedGraph<ID> graph, List<ID> order, OutputStream output) throws IOException {
+        DSMOrdering ordering = new DSMOrdering(graph, order);
+        int n = order.size();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        for (String line : HEAD) {
+            writer.write(line);
+            writer.write('\n');
+        }
+
+        writer.write("<thead><tr><th class=\"n\">Node</th><th>#</th>");
+        for (int j = 0; j < n; j++) {
+            writer.write("<th class=\"b" + (j % BANDS) + "\">" + (j + 1) + "</th>");
+        }
+        writer.write("<th>Successors</th></tr></thead>\n<tbody>\n");
+
+        IntCursor cursor = graph.successorCursor();
+        for (int i = 0; i < n; i++) {
+            DSMRow row = ordering.row(i, cursor);
+            String band = "b" + (i % BANDS);
+            writer.write("<tr><td class=\"n " + band + "\">");
+            writeEscaped(writer, Objects.toString(order.get(i)));
+            writer.write("</td><td class=\"i " + band + "\">" + (i + 1) + "</td>");
+            int next = 0;
+            for (int j = 0; j < n; j++) {
+                if (j == i) {
+                    writer.write("<td class=\"d\"></td>");
+                } else if (next < row.columns.length && row.columns[next] == j) {
+                    writer.write("<td class=\"x b" + (Math.max(i, j) % BANDS) + "\">X</td>");
+                    next++;
+                } else {
+                    writer.write("<td class=\"b" + (Math.max(i, j) % BANDS) + "\"></td>");
+                }
+            }
+            writer.write("<td class=\"s " + band + "\">" + ordering.successors[i] + "</td></tr>\n");
+        }
+
+        writer.write("</tbody>\n<tfoot><tr><td class=\"h n\">Predecessors</td><td class=\"h\"></td>");
+        for (int j = 0; j < n; j++) {
+            writer.write("<td class=\"b" + (j % BANDS) + "\">" + ordering.predecessors[j] + "</td>");
+        }
+        writer.write("<td class=\"h\"></td></tr></tfoot>\n</table>\n</body>\n</html>\n");
+        writer.flush();
+    }
+
+    private static void writeEscaped(Writer writer, String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '"':
+                    writer.write("&quot;");
+                    break;
+                default:
+                    writer.write(c);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.IntCursor;
+
+/**
+ * Renders a DSM as a binary greyscale image (a "P5" portable graymap), with a
+ * pixel per cell: black for dependencies, grey for the diagonal and white for
+ * the rest. Node names are not included. Most image viewers can open these
+ * files, and they show the structure of graphs with many thousands of nodes at
+ * a glance.
+ *
+ * @param <ID> The type of nodes.
+ */
+public final class PGMRenderer<ID> implements DSMRenderer<ID> {
+
+    static final byte DEPENDENCY = 0;
+    static final byte DIAGONAL = (byte) 128;
+    static final byte EMPTY = (byte) 255;
+
+    @Override
+    public void render(DirectedGraph<ID> graph, List<ID> order, OutputStream output) throws IOException {
+        DSMOrdering ordering = new DSMOrdering(graph, order);
+        int n = order.size();
+        output.write(String.format("P5\n%d %d\n255\n", n, n).getBytes(StandardCharsets.US_ASCII));
+
+        byte[] pixels = new byte[n];
+        IntCursor cursor = graph.successorCursor();
+        int[] columns = new int[ordering.maxSuccessors()];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(pixels, EMPTY);
+            pixels[i] = DIAGONAL;
+            int count = ordering.row(i, cursor, columns);
+            for (int k = 0; k < count; k++) {
+                pixels[columns[k]] = DEPENDENCY;
+            }
+            output.write(pixels);
+        }
+        output.flush();
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+/**
+ * Loads edge list files (see EdgeListParser) encoded in UTF-8. Files are
+ * memory-mapped and parsed as bytes, without decoding lines into Strings.
+ * Large files can be parsed in parallel, splitting them in chunks of lines.
+ */
+public final class EdgeListLoader {
+
+    /**
+     * Files are mapped in regions of at most this size.
+     */
+    static final int REGION_SIZE = 1 << 30;
+    /**
+     * Files are parsed in parallel in chunks of at least this size.
+     */
+    static final int MINIMUM_CHUNK_SIZE = 1 << 20;
+
+    private EdgeListLoader() {
+    }
+
+    /**
+     * Loads a graph from an edge list file.
+     *
+     * @param file The file.
+     * @return The graph.
+     * @throws IOException on I/O errors.
+     */
+    public static DirectedGraph<String> load(Path file) throws IOException {
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        load(file, builder);
+        return builder.build();
+    }
+
+    /**
+     * Loads the edges in an edge list file into a builder.
+     *
+     * @param file The file.
+     * @param builder The builder.
+     * @throws IOException on I/O errors.
+     */
+    public static void load(Path file, DirectedGraphBuilder<String> builder) throws IOException {
+        load(file, builder, REGION_SIZE);
+    }
+
+    static void load(Path file, DirectedGraphBuilder<String> builder, int regionSize) throws IOException {
+        EdgeListParser parser = new EdgeListParser(builder);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(regionSize, size - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (position == 0) {
+                    skipByteOrderMark(region);
+                }
+                if (position + length == size) {
+                    parser.parse(region);
+                    break;
+                }
+                // Parse up to the last line break, the rest goes to the next region
+                parser.parseLines(region);
+                if (region.position() == 0) {
+                    throw new IOException(
+                            String.format("Line at offset %d is longer than %d bytes", position, regionSize));
+                }
+                position += region.position();
+            }
+        }
+    }
+
+    /**
+     * Loads a graph from an edge list file, parsing chunks of the file in
+     * parallel in the common fork-join pool.
+     *
+     * @param file The file.
+     * @return The graph.
+     * @throws IOException on I/O errors.
+     */
+    public static DirectedGraph<String> loadParallel(Path file) throws IOException {
+        return loadParallel(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads a graph from an edge list file, parsing chunks of the file in
+     * parallel in a fork-join pool. Each chunk is parsed into its own
+     * builder, and builders are then merged.
+     *
+     * @param file The file.
+     * @param pool The pool.
+     * @return The graph.
+     * @throws IOException on I/O errors.
+     */
+    public static DirectedGraph<String> loadParallel(Path file, ForkJoinPool pool) throws IOException {
+        int chunks = 4 * pool.getParallelism();
+        return loadParallel(file, pool, REGION_SIZE, chunks, MINIMUM_CHUNK_SIZE).build();
+    }
+
+    static DirectedGraphBuilder<String> loadParallel(Path file, ForkJoinPool pool,
+            int regionSize, int chunksPerRegion, int minimumChunkSize) throws IOException {
+        DirectedGraphBuilder<String> builder = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(regionSize, size - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (position == 0) {
+                    skipByteOrderMark(region);
+                }
+                int end = region.limit();
+                if (position + length < size) {
+                    // The last (incomplete) line goes to the next region
+                    end = nextLine(region, region.position(), end, true);
+                    if (end == region.position()) {
+                        throw new IOException(
+                                String.format("Line at offset %d is longer than %d bytes", position, regionSize));
+                    }
+                }
+                List<ByteBuffer> chunks = split(region, end,
+                        Math.max(minimumChunkSize, (end - region.position()) / chunksPerRegion));
+                DirectedGraphBuilder<String> regionBuilder = pool.invoke(new ParseTask(chunks, 0, chunks.size()));
+                builder = builder == null ? regionBuilder : builder.merge(regionBuilder);
+                position += end;
+            }
+        }
+        return builder == null ? new DirectedGraphBuilder<>() : builder;
+    }
+
+    /**
+     * Splits a buffer, from its position to end, in chunks of complete lines.
+     */
+    private static List<ByteBuffer> split(ByteBuffer buffer, int end, int chunkSize) {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        int start = buffer.position();
+        while (start < end) {
+            int chunkEnd = end - start <= chunkSize ? end : nextLine(buffer, start + chunkSize, end, false);
+            ByteBuffer chunk = buffer.duplicate();
+            ((Buffer) chunk).limit(chunkEnd).position(start);
+            chunks.add(chunk);
+            start = chunkEnd;
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the index after a line break, searching forward from start or
+     * backwards from end. Returns end (searching forward) or start (searching
+     * backwards) if there are no line breaks.
+     */
+    private static int nextLine(ByteBuffer buffer, int start, int end, boolean backwards) {
+        if (backwards) {
+            for (int i = end - 1; i >= start; i--) {
+                if (buffer.get(i) == '\n') {
+                    return i + 1;
+                }
+            }
+            return start;
+        }
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Parses a range of chunks, splitting the range in two halves that are
+     * parsed in parallel and then merged.
+     */
+    private static final class ParseTask extends RecursiveTask<DirectedGraphBuilder<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ByteBuffer> chunks;
+        private final int from;
+        private final int to;
+
+        ParseTask(List<ByteBuffer> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected DirectedGraphBuilder<String> compute() {
+            if (to - from <= 1) {
+                DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+                if (from < to) {
+                    new EdgeListParser(builder).parse(chunks.get(from));
+                }
+                return builder;
+            }
+            int middle = (from + to) >>> 1;
+            ParseTask right = new ParseTask(chunks, middle, to);
+            right.fork();
+            DirectedGraphBuilder<String> left = new ParseTask(chunks, from, middle).compute();
+            return left.merge(right.join());
+        }
+
+    }
+
+    private static void skipByteOrderMark(MappedByteBuffer region) {
+        if (region.remaining() >= 3
+                && region.get(0) == (byte) 0xEF && region.get(1) == (byte) 0xBB && region.get(2) == (byte) 0xBF) {
+            ((Buffer) region).position(3);
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+/**
+ * Parses edge lists, where each line contains a source node and a target node
+ * separated by a colon ':'. Whitespace around node names is ignored. Lines
+ * with no colon, with more than one colon or with an empty node name are
+ * ignored with a warning.
+ *
+ * The parser scans buffers of characters or UTF-8 bytes for line breaks and
+ * colons, trims names by index and interns them in a symbol table, so a String
+ * is created only the first time a node name is seen.
+ */
+public final class EdgeListParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DirectedGraphBuilder<String> builder;
+    private final SymbolTable symbols;
+
+    /**
+     * Creates a parser that feeds the edges to a builder.
+     *
+     * @param builder The builder.
+     */
+    public EdgeListParser(DirectedGraphBuilder<String> builder) {
+        this.builder = builder;
+        this.symbols = new SymbolTable();
+    }
+
+    /**
+     * Parses all the lines read from a reader.
+     *
+     * @param reader The reader.
+     * @throws IOException on I/O errors.
+     */
+    public void parse(Reader reader) throws IOException {
+        CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
+        while (reader.read(buffer) != -1) {
+            ((Buffer) buffer).flip();
+            parseLines(buffer);
+            if (!buffer.hasRemaining()) {
+                ((Buffer) buffer).clear();
+            } else if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+                // A single line does not fit in the buffer
+                CharBuffer larger = CharBuffer.allocate(buffer.capacity() * 2);
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.compact();
+            }
+        }
+        ((Buffer) buffer).flip();
+        parse(buffer);
+    }
+
+    /**
+     * Parses all the lines in a buffer. The last line does not need to end
+     * with a line break.
+     *
+     * @param buffer The buffer, from its position to its limit.
+     */
+    public void parse(CharBuffer buffer) {
+        parseLines(buffer);
+        if (buffer.hasRemaining()) {
+            parseLine(buffer, buffer.position(), buffer.limit());
+            ((Buffer) buffer).position(buffer.limit());
+        }
+    }
+
+    /**
+     * Parses all the lines in a buffer of UTF-8 bytes. The last line does not
+     * need to end with a line break.
+     *
+     * @param buffer The buffer, from its position to its limit.
+     */
+    public void parse(ByteBuffer buffer) {
+        parseLines(buffer);
+        if (buffer.hasRemaining()) {
+            parseLine(buffer, buffer.position(), buffer.limit());
+            ((Buffer) buffer).position(buffer.limit());
+        }
+    }
+
+    /**
+     * Parses the complete lines (ending with a line break) in a buffer of
+     * UTF-8 bytes, leaving the position of the buffer after the last line
+     * break. Line breaks and colons are ASCII, and never appear inside UTF-8
+     * multi-byte sequences, so bytes can be scanned without decoding them.
+     *
+     * @param buffer The buffer, from its position to its limit.
+     */
+    void parseLines(ByteBuffer buffer) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                parseLine(buffer, start, i);
+                start = i + 1;
+            }
+        }
+        ((Buffer) buffer).position(start);
+    }
+
+    /**
+     * Parses a line of UTF-8 bytes, from start (inclusive) to end (exclusive),
+     * given as absolute indexes in the buffer.
+     */
+    private void parseLine(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        int colon = -1;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == ':') {
+                if (colon != -1) {
+                    colon = -1;
+                    break;
+                }
+                colon = i;
+            }
+        }
+        if (colon == -1) {
+            warn(buffer, start, end);
+            return;
+        }
+        int sourceStart = skipWhitespace(buffer, start, colon);
+        int sourceEnd = trimWhitespace(buffer, sourceStart, colon);
+        int targetStart = skipWhitespace(buffer, colon + 1, end);
+        int targetEnd = trimWhitespace(buffer, targetStart, end);
+        if (sourceStart == sourceEnd || targetStart == targetEnd) {
+            warn(buffer, start, end);
+            return;
+        }
+        String source = symbols.intern(buffer, sourceStart, sourceEnd);
+        String target = symbols.intern(buffer, targetStart, targetEnd);
+        builder.connect(source, target);
+    }
+
+    private static void warn(ByteBuffer buffer, int start, int end) {
+        System.err.format("Warning: Ignoring line '%s'%n", SymbolTable.decode(buffer, start, end));
+    }
+
+    private static int skipWhitespace(ByteBuffer buffer, int start, int end) {
+        while (start < end && isWhitespace(buffer.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimWhitespace(ByteBuffer buffer, int start, int end) {
+        while (end > start && isWhitespace(buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        // Bytes of UTF-8 multi-byte sequences are negative
+        return b >= 0 && b <= ' ';
+    }
+
+    /**
+     * Parses the complete lines (ending with a line break) in a buffer,
+     * leaving the position of the buffer after the last line break.
+     */
+    private void parseLines(CharBuffer buffer) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                parseLine(buffer, start, i);
+                start = i + 1;
+            }
+        }
+        ((Buffer) buffer).position(start);
+    }
+
+    /**
+     * Parses a line, from start (inclusive) to end (exclusive), given as
+     * absolute indexes in the buffer.
+     */
+    private void parseLine(CharBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        int colon = -1;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == ':') {
+                if (colon != -1) {
+                    colon = -1;
+                    break;
+                }
+                colon = i;
+            }
+        }
+        if (colon == -1) {
+            warn(buffer, start, end);
+            return;
+        }
+        int sourceStart = skipWhitespace(buffer, start, colon);
+        int sourceEnd = trimWhitespace(buffer, sourceStart, colon);
+        int targetStart = skipWhitespace(buffer, colon + 1, end);
+        int targetEnd = trimWhitespace(buffer, targetStart, end);
+        if (sourceStart == sourceEnd || targetStart == targetEnd) {
+            warn(buffer, start, end);
+            return;
+        }
+        // CharSequence methods of CharBuffer are relative to its position
+        int base = buffer.position();
+        String source = symbols.intern(buffer, sourceStart - base, sourceEnd - base);
+        String target = symbols.intern(buffer, targetStart - base, targetEnd - base);
+        builder.connect(source, target);
+    }
+
+    private static void warn(CharBuffer buffer, int start, int end) {
+        int base = buffer.position();
+        System.err.format("Warning: Ignoring line '%s'%n", buffer.subSequence(start - base, end - base));
+    }
+
+    private static int skipWhitespace(CharBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimWhitespace(CharBuffer buffer, int start, int end) {
+        while (end > start && buffer.get(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+}
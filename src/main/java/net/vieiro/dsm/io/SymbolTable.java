@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.io;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Interns node names read from a buffer, so that repeated names share a single
+ * String instance and no String is created for names already seen. Names can
+ * be read from characters or from UTF-8 bytes.
+ */
+final class SymbolTable {
+
+    private String[] symbols;
+    private int[] hashes;
+    private int size;
+
+    SymbolTable() {
+        this(1024);
+    }
+
+    /**
+     * Creates a symbol table.
+     *
+     * @param expectedSymbols The expected number of different symbols.
+     */
+    SymbolTable(int expectedSymbols) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSymbols * 2 - 1)) << 1;
+        this.symbols = new String[capacity];
+        this.hashes = new int[capacity];
+    }
+
+    /**
+     * Returns the number of different symbols in this table.
+     *
+     * @return The number of symbols.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the symbol for the characters of a CharSequence, from start
+     * (inclusive) to end (exclusive).
+     *
+     * @param chars The characters.
+     * @param start The start index.
+     * @param end The end index.
+     * @return The symbol, equal to chars.subSequence(start, end).toString()
+     */
+    String intern(CharSequence chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int length = end - start;
+        int mask = symbols.length - 1;
+        int slot = mix(hash) & mask;
+        while (symbols[slot] != null) {
+            if (hashes[slot] == hash && matches(symbols[slot], chars, start, length)) {
+                return symbols[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        String symbol = chars.subSequence(start, end).toString();
+        add(slot, symbol, hash);
+        return symbol;
+    }
+
+    /**
+     * Returns the symbol for the UTF-8 bytes of a buffer, from start
+     * (inclusive) to end (exclusive), given as absolute indexes.
+     *
+     * @param bytes The bytes.
+     * @param start The start index.
+     * @param end The end index.
+     * @return The symbol.
+     */
+    String intern(ByteBuffer bytes, int start, int end) {
+        // ASCII names hash and compare the same as bytes or as chars
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            byte b = bytes.get(i);
+            if (b < 0) {
+                String decoded = decode(bytes, start, end);
+                return intern(decoded, 0, decoded.length());
+            }
+            hash = 31 * hash + b;
+        }
+        int length = end - start;
+        int mask = symbols.length - 1;
+        int slot = mix(hash) & mask;
+        while (symbols[slot] != null) {
+            if (hashes[slot] == hash && matches(symbols[slot], bytes, start, length)) {
+                return symbols[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        String symbol = decode(bytes, start, end);
+        add(slot, symbol, hash);
+        return symbol;
+    }
+
+    /**
+     * Decodes UTF-8 bytes, from start (inclusive) to end (exclusive), given as
+     * absolute indexes.
+     */
+    static String decode(ByteBuffer bytes, int start, int end) {
+        ByteBuffer range = bytes.duplicate();
+        ((Buffer) range).limit(end).position(start);
+        return StandardCharsets.UTF_8.decode(range).toString();
+    }
+
+    private static boolean matches(String symbol, ByteBuffer bytes, int start, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != bytes.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String symbol, CharSequence chars, int start, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != chars.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(int slot, String symbol, int hash) {
+        symbols[slot] = symbol;
+        hashes[slot] = hash;
+        if (++size * 2 > symbols.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        String[] oldSymbols = symbols;
+        int[] oldHashes = hashes;
+        symbols = new String[oldSymbols.length * 2];
+        hashes = new int[oldSymbols.length * 2];
+        int mask = symbols.length - 1;
+        for (int i = 0; i < oldSymbols.length; i++) {
+            if (oldSymbols[i] != null) {
+                int slot = mix(oldHashes[i]) & mask;
+                while (symbols[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                symbols[slot] = oldSymbols[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -15,13 +15,23 @@
  */
 package net.vieiro.dsm;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class MainTest {
 
+    @TempDir
+    Path directory;
+
     @Test
     void testShouldRunTestFileProperly() throws Exception {
         Path testFile = Paths.get("src", "test", "resources", "simple-test.txt");
@@ -29,4 +39,55 @@ class MainTest {
         Main.main(new String[]{testFileString});
     }
 
+    @Test
+    void testShouldRenderByOutputExtension() throws Exception {
+        // Given the test file
+        Path testFile = Paths.get("src", "test", "resources", "simple-test.txt");
+
+        // When we render it as CSV
+        Path csv = directory.resolve("output.csv");
+        Main.main(new String[]{testFile.toString(), csv.toString()});
+
+        // Then we get a header, a row per node and a footer
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        Assertions.assertTrue(lines.get(0).startsWith("Node,#,1,"));
+        Assertions.assertTrue(lines.get(lines.size() - 1).startsWith("Predecessors,"));
+    }
+
+    @Test
+    void testShouldReadEdgeListsStartingLikeSnapshots() throws Exception {
+        // Given an edge list whose first node starts with "DSMG"
+        Path input = directory.resolve("input.txt");
+        Files.write(input, "DSMGenerator:Foo\nFoo:Bar\n".getBytes(StandardCharsets.UTF_8));
+
+        // When we render it as CSV
+        Path csv = directory.resolve("output.csv");
+        Main.main(new String[]{input.toString(), csv.toString()});
+
+        // Then it is read as an edge list
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        Assertions.assertEquals(5, lines.size());
+        Assertions.assertTrue(lines.get(1).startsWith("DSMGenerator,"));
+    }
+
+    @Test
+    void testShouldWriteMetricsOnlyWhenAsked() throws Exception {
+        // Given the test file
+        Path testFile = Paths.get("src", "test", "resources", "simple-test.txt");
+
+        // When we render it with and without metrics
+        Path plain = directory.resolve("plain.xlsx");
+        Main.main(new String[]{testFile.toString(), plain.toString()});
+        Path withMetrics = directory.resolve("metrics.xlsx");
+        Main.main(new String[]{"--metrics", testFile.toString(), withMetrics.toString()});
+
+        // Then only the second workbook has a "Metrics" sheet
+        try (Workbook workbook = WorkbookFactory.create(plain.toFile())) {
+            Assertions.assertEquals(1, workbook.getNumberOfSheets());
+        }
+        try (Workbook workbook = WorkbookFactory.create(withMetrics.toFile())) {
+            Assertions.assertNotNull(workbook.getSheet("Metrics"));
+        }
+    }
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BitMatrixAdjacencyTest {
+
+    @Test
+    void testShouldIterateAcrossWordBoundaries() {
+        // Given a matrix larger than a few words
+        BitMatrixAdjacency adjacency = new BitMatrixAdjacency(200);
+        int[] targets = {0, 1, 63, 64, 65, 127, 128, 199};
+        for (int target : targets) {
+            adjacency.connect(5, target);
+            adjacency.connect(target, 130);
+        }
+
+        // Then successors are returned in ascending order
+        List<Integer> successors = new ArrayList<>();
+        adjacency.successors(5).forEachRemaining((int i) -> successors.add(i));
+        Assertions.assertEquals(Arrays.asList(0, 1, 63, 64, 65, 127, 128, 199), successors);
+
+        // And so are predecessors
+        List<Integer> predecessors = new ArrayList<>();
+        adjacency.predecessors(130).forEachRemaining((int i) -> predecessors.add(i));
+        Assertions.assertEquals(Arrays.asList(0, 1, 63, 64, 65, 127, 128, 199), predecessors);
+
+        Assertions.assertTrue(adjacency.connects(5, 64));
+        Assertions.assertFalse(adjacency.connects(64, 5));
+        Assertions.assertFalse(adjacency.successors(6).hasNext());
+    }
+
+}
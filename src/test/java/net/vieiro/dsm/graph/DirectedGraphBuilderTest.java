@@ -15,10 +15,17 @@
  */
 package net.vieiro.dsm.graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -133,4 +140,290 @@ class DirectedGraphBuilderTest {
         });
     }
 
+    @Test
+    void testShouldBuildSparseAndDenseGraphsEqually() {
+        // Given a random graph
+        Random random = new Random(42);
+        DirectedGraphBuilder<Integer> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 500; i++) {
+            builder.connect(random.nextInt(100), random.nextInt(100));
+        }
+        // When we build it both as a sparse and as a dense graph
+        DirectedGraph<Integer> sparse = builder.build(true);
+        DirectedGraph<Integer> dense = builder.build(false);
+
+        // Then both graphs have the same edges
+        Assertions.assertTrue(sparse.adjacency instanceof SparseAdjacency);
+        Assertions.assertTrue(dense.adjacency instanceof BitMatrixAdjacency);
+        Assertions.assertEquals(dense.nodes(), sparse.nodes());
+        for (Integer a : dense.nodes()) {
+            Set<Integer> denseSuccessors = new HashSet<>();
+            dense.successors(a).forEachRemaining(denseSuccessors::add);
+            Set<Integer> sparseSuccessors = new HashSet<>();
+            sparse.successors(a).forEachRemaining(sparseSuccessors::add);
+            Assertions.assertEquals(denseSuccessors, sparseSuccessors);
+
+            Set<Integer> densePredecessors = new HashSet<>();
+            dense.predecessors(a).forEachRemaining(densePredecessors::add);
+            Set<Integer> sparsePredecessors = new HashSet<>();
+            sparse.predecessors(a).forEachRemaining(sparsePredecessors::add);
+            Assertions.assertEquals(densePredecessors, sparsePredecessors);
+
+            for (Integer b : dense.nodes()) {
+                Assertions.assertEquals(dense.connects(a, b), sparse.connects(a, b));
+            }
+        }
+    }
+
+    @Test
+    void testShouldChooseRepresentationByDensity() {
+        // A complete graph is dense
+        DirectedGraphBuilder<Integer> dense = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                dense.connect(i, j);
+            }
+        }
+        Assertions.assertTrue(dense.build().adjacency instanceof BitMatrixAdjacency);
+
+        // A long chain is sparse
+        DirectedGraphBuilder<Integer> sparse = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 1000; i++) {
+            sparse.connect(i, i + 1);
+        }
+        Assertions.assertTrue(sparse.build().adjacency instanceof SparseAdjacency);
+    }
+
+    @Test
+    void testShouldUpdateDegreesWhenRemovingNodes() {
+        // Given a graph
+        // A->B->C
+        // A---->C
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        DirectedGraph<String> g = builder.connect("A", "B").connect("A", "C").connect("B", "C").build();
+
+        // When we remove B (twice) and a node not in the graph
+        DirectedGraph<String> subgraph = g.remove(Arrays.asList("B", "B", "D"));
+
+        // Then degrees of the remaining nodes are updated
+        Assertions.assertArrayEquals(new int[]{0, 1}, subgraph.getInAndOutDegrees("A"));
+        Assertions.assertArrayEquals(new int[]{1, 0}, subgraph.getInAndOutDegrees("C"));
+        // And the original graph is left untouched
+        Assertions.assertArrayEquals(new int[]{0, 2}, g.getInAndOutDegrees("A"));
+        Assertions.assertArrayEquals(new int[]{2, 0}, g.getInAndOutDegrees("C"));
+
+        // When we remove C then A is both a sink and a source
+        subgraph = subgraph.remove("C");
+        Assertions.assertEquals("A", subgraph.sinks().next());
+        Assertions.assertEquals("A", subgraph.sources().next());
+    }
+
+    @Test
+    void testShouldExposeIndexedNodes() {
+        // Given a graph
+        // A->B->C
+        // A---->C
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        DirectedGraph<String> g = builder.connect("A", "B").connect("A", "C").connect("B", "C").build();
+        int a = g.indexOf("A");
+        int b = g.indexOf("B");
+        int c = g.indexOf("C");
+        Assertions.assertEquals(-1, g.indexOf("D"));
+        Assertions.assertEquals("B", g.nodeAt(b));
+        Assertions.assertTrue(g.connects(a, c));
+        Assertions.assertFalse(g.connects(c, a));
+        Assertions.assertEquals(2, g.outDegree(a));
+        Assertions.assertEquals(2, g.inDegree(c));
+
+        // When we remove B
+        DirectedGraph<String> subgraph = g.remove("B");
+
+        // Then indexes are kept, but B is no longer there
+        Assertions.assertEquals(3, subgraph.getIndexCapacity());
+        Assertions.assertEquals(a, subgraph.indexOf("A"));
+        Assertions.assertEquals(-1, subgraph.indexOf("B"));
+        Assertions.assertFalse(subgraph.contains(b));
+        Assertions.assertThrows(NoSuchElementException.class, () -> {
+            subgraph.nodeAt(b);
+        });
+        Set<Integer> successorsOfA = new HashSet<>();
+        subgraph.successors(a).forEachRemaining((int i) -> successorsOfA.add(i));
+        Assertions.assertEquals(Collections.singleton(c), successorsOfA);
+        Set<Integer> nodes = new HashSet<>();
+        subgraph.nodeIndexes().forEachRemaining((int i) -> nodes.add(i));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(a, c)), nodes);
+    }
+
+    @Test
+    void testShouldWalkNeighborsWithCursors() {
+        // Given a random graph, both sparse and dense, with some nodes removed
+        Random random = new Random(7);
+        DirectedGraphBuilder<Integer> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 400; i++) {
+            builder.connect(random.nextInt(80), random.nextInt(80));
+        }
+        for (boolean sparse : new boolean[]{true, false}) {
+            DirectedGraph<Integer> g = builder.build(sparse).remove(Arrays.asList(1, 2, 3, 5, 8, 13));
+            IntCursor successors = g.successorCursor();
+            IntCursor predecessors = g.predecessorCursor();
+            g.nodeIndexes().forEachRemaining((int node) -> {
+                // Then cursors, consumers and iterators return the same indexes
+                List<Integer> expected = new ArrayList<>();
+                g.successors(node).forEachRemaining((int i) -> expected.add(i));
+                List<Integer> actual = new ArrayList<>();
+                successors.reset(node);
+                for (int i = successors.next(); i != IntCursor.END; i = successors.next()) {
+                    actual.add(i);
+                }
+                Assertions.assertEquals(expected, actual);
+                actual.clear();
+                g.forEachSuccessor(node, actual::add);
+                Assertions.assertEquals(expected, actual);
+                // And cursors resume from any index, within and across words
+                for (int from : new int[]{0, 1, node, 63, 64, 70, 200}) {
+                    List<Integer> resumed = new ArrayList<>();
+                    successors.reset(node, from);
+                    for (int i = successors.next(); i != IntCursor.END; i = successors.next()) {
+                        resumed.add(i);
+                    }
+                    Assertions.assertEquals(expected.stream().filter(i -> i >= from).collect(Collectors.toList()), resumed);
+                }
+
+                expected.clear();
+                g.predecessors(node).forEachRemaining((int i) -> expected.add(i));
+                actual.clear();
+                predecessors.reset(node);
+                for (int i = predecessors.next(); i != IntCursor.END; i = predecessors.next()) {
+                    actual.add(i);
+                }
+                Assertions.assertEquals(expected, actual);
+                actual.clear();
+                g.forEachPredecessor(node, actual::add);
+                Assertions.assertEquals(expected, actual);
+            });
+            Assertions.assertThrows(NoSuchElementException.class, () -> {
+                successors.reset(g.getIndexCapacity());
+            });
+        }
+    }
+
+    @Test
+    void testShouldMergeBuilders() {
+        // Given two builders with some common nodes and edges
+        DirectedGraphBuilder<String> first = new DirectedGraphBuilder<>();
+        first.connect("A", "B").connect("B", "C");
+        DirectedGraphBuilder<String> second = new DirectedGraphBuilder<>();
+        second.connect("B", "C").connect("B", "D").connect("E", "A");
+
+        // When we merge them
+        DirectedGraph<String> g = first.merge(second).build();
+
+        // Then the graph has all nodes and edges
+        Assertions.assertEquals(5, g.getOrder());
+        Assertions.assertTrue(g.connects("A", "B"));
+        Assertions.assertTrue(g.connects("B", "C"));
+        Assertions.assertTrue(g.connects("B", "D"));
+        Assertions.assertTrue(g.connects("E", "A"));
+        Assertions.assertArrayEquals(new int[]{1, 2}, g.getInAndOutDegrees("B"));
+        // And the merged builder is left untouched
+        Assertions.assertFalse(second.build().connects("A", "B"));
+    }
+
+    @Test
+    void testShouldConnectConcurrently() {
+        // Given a concurrent builder
+        DirectedGraphBuilder<Integer> builder = DirectedGraphBuilder.concurrent();
+        Assertions.assertTrue(builder.isConcurrent());
+        int n = 1_000;
+
+        // When many threads connect each node to its next two nodes
+        IntStream.range(0, n).parallel().forEach(i -> {
+            builder.connect(i, (i + 1) % n);
+            builder.connect(i, (i + 2) % n);
+        });
+        DirectedGraph<Integer> g = builder.build();
+
+        // Then no node or edge is lost
+        Assertions.assertEquals(n, g.getOrder());
+        for (int i = 0; i < n; i++) {
+            Assertions.assertTrue(g.connects(i, (i + 1) % n));
+            Assertions.assertTrue(g.connects(i, (i + 2) % n));
+            Assertions.assertArrayEquals(new int[]{2, 2}, g.getInAndOutDegrees(i));
+        }
+    }
+
+    @Test
+    void testShouldMergeIntoConcurrentBuilder() {
+        // Given a concurrent builder and a plain one
+        DirectedGraphBuilder<String> concurrent = DirectedGraphBuilder.concurrent();
+        concurrent.connect("A", "B");
+        DirectedGraphBuilder<String> plain = new DirectedGraphBuilder<>();
+        Assertions.assertFalse(plain.isConcurrent());
+        plain.connect("A", "C").connect("C", "A");
+
+        // When we merge the plain builder into the concurrent one
+        DirectedGraph<String> g = concurrent.merge(plain).build();
+
+        // Then the graph has all nodes and edges
+        Assertions.assertEquals(3, g.getOrder());
+        Assertions.assertTrue(g.connects("A", "B"));
+        Assertions.assertTrue(g.connects("A", "C"));
+        Assertions.assertTrue(g.connects("C", "A"));
+    }
+
+    @Test
+    void testShouldBuildTheSameGraphWithCompactBuilders() {
+        // Given a random graph with duplicated edges, in a default, a hinted and a compact builder
+        Random random = new Random(13);
+        int n = 200;
+        DirectedGraphBuilder<Integer> plain = new DirectedGraphBuilder<>();
+        DirectedGraphBuilder<Integer> hinted = new DirectedGraphBuilder<>(n, 4 * n);
+        DirectedGraphBuilder<Integer> compact = DirectedGraphBuilder.compact(10, 10);
+        Assertions.assertTrue(compact.isCompact());
+        Assertions.assertFalse(hinted.isCompact());
+        for (int i = 0; i < 4 * n; i++) {
+            int source = random.nextInt(n);
+            int target = random.nextInt(n);
+            plain.connect(source, target);
+            hinted.connect(source, target);
+            compact.connect(source, target).connect(source, target);
+        }
+
+        // When we build them, with both representations
+        DirectedGraph<Integer> expected = plain.build();
+        for (DirectedGraph<Integer> g : Arrays.asList(
+                hinted.build(), compact.build(), compact.build(true), compact.build(false))) {
+            // Then they have the same nodes and edges
+            Assertions.assertEquals(expected.nodes(), g.nodes());
+            for (Integer source : expected.nodes()) {
+                Assertions.assertArrayEquals(expected.getInAndOutDegrees(source), g.getInAndOutDegrees(source));
+                for (Integer target : expected.nodes()) {
+                    Assertions.assertEquals(expected.connects(source, target), g.connects(source, target));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testShouldKeepUsingCompactBuildersAfterBuild() {
+        // Given a compact builder that has already built a graph
+        DirectedGraphBuilder<String> builder = DirectedGraphBuilder.compact(0, 0);
+        DirectedGraph<String> first = builder.connect("A", "B").build();
+
+        // When we add more nodes and merge it with another builder
+        DirectedGraphBuilder<String> other = new DirectedGraphBuilder<>();
+        other.connect("C", "A");
+        DirectedGraph<String> second = builder.connect("B", "C").merge(other).build();
+
+        // Then the first graph is left untouched
+        Assertions.assertEquals(2, first.getOrder());
+        Assertions.assertEquals(-1, first.indexOf("C"));
+        // And the second one has all nodes and edges, indexed in insertion order
+        Assertions.assertEquals(3, second.getOrder());
+        Assertions.assertEquals(2, second.indexOf("C"));
+        Assertions.assertTrue(second.connects("B", "C"));
+        Assertions.assertTrue(second.connects("C", "A"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DirectedGraphBuilder.compact(-1, 0));
+    }
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GraphSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testShouldSaveAndLoadSnapshots() throws Exception {
+        // Given a random graph with non ASCII names, with a removed node
+        Random random = new Random(14);
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 1_000; i++) {
+            builder.connect("Nodo-" + random.nextInt(300), "Nódo-" + random.nextInt(300));
+        }
+        builder.connect("Nodo-0", "Nodo-0");
+        DirectedGraph<String> g = builder.build().remove("Nodo-1");
+
+        // When we save it and load it back, with and without verifying it
+        Path file = directory.resolve("graph" + GraphSnapshot.EXTENSION);
+        GraphSnapshot.save(g, file);
+        for (boolean verify : new boolean[]{false, true}) {
+            DirectedGraph<String> loaded = GraphSnapshot.load(file, verify);
+
+            // Then it is detected as a snapshot
+            Assertions.assertTrue(GraphSnapshot.isSnapshot(file));
+            // And it has the same nodes and edges
+            Assertions.assertEquals(g.nodes(), loaded.nodes());
+            for (String source : g.nodes()) {
+                Assertions.assertArrayEquals(g.getInAndOutDegrees(source), loaded.getInAndOutDegrees(source));
+                Set<String> predecessors = new HashSet<>();
+                g.predecessors(source).forEachRemaining(predecessors::add);
+                Set<String> loadedPredecessors = new HashSet<>();
+                loaded.predecessors(source).forEachRemaining(loadedPredecessors::add);
+                Assertions.assertEquals(predecessors, loadedPredecessors);
+                int index = loaded.indexOf(source);
+                IntCursor resumed = loaded.predecessorCursor();
+                resumed.reset(index, index);
+                for (int i = resumed.next(); i != IntCursor.END; i = resumed.next()) {
+                    Assertions.assertTrue(i >= index);
+                    Assertions.assertTrue(loadedPredecessors.remove(loaded.nodeAt(i)));
+                }
+                loaded.predecessors(index).forEachRemaining((int i) -> Assertions.assertEquals(i < index,
+                        loadedPredecessors.contains(loaded.nodeAt(i))));
+                for (String target : g.nodes()) {
+                    Assertions.assertEquals(g.connects(source, target), loaded.connects(source, target));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testShouldRejectCorruptedSnapshots() throws Exception {
+        // Given a snapshot and a text file
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>().connect("A", "B").connect("B", "C").build();
+        Path file = directory.resolve("graph" + GraphSnapshot.EXTENSION);
+        GraphSnapshot.save(g, file);
+        Path text = directory.resolve("graph.txt");
+        Files.write(text, "A:B".getBytes("UTF-8"));
+
+        // When a byte of the snapshot is modified
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        // Then it fails to load when verified
+        Assertions.assertThrows(IOException.class, () -> GraphSnapshot.load(file, true));
+        // And text files are not snapshots
+        Assertions.assertFalse(GraphSnapshot.isSnapshot(text));
+        Assertions.assertThrows(IOException.class, () -> GraphSnapshot.load(text));
+    }
+
+    @Test
+    void testShouldNotTakeEdgeListsForSnapshots() throws Exception {
+        // Given an edge list whose first node starts with "DSMG"
+        Path text = directory.resolve("graph.txt");
+        Files.write(text, "DSMGenerator:Foo\nFoo:Bar\n".getBytes(StandardCharsets.UTF_8));
+
+        // Then it is not a snapshot
+        Assertions.assertFalse(GraphSnapshot.isSnapshot(text));
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MutableDirectedGraphTest {
+
+    @Test
+    void testShouldRemoveNodesInPlace() {
+        // Given a graph
+        // A->B->C
+        // A---->C
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        DirectedGraph<String> g = builder.connect("A", "B").connect("A", "C").connect("B", "C").build();
+        MutableDirectedGraph<String> workspace = g.workspace();
+
+        // When we remove B
+        Assertions.assertTrue(workspace.remove("B"));
+        Assertions.assertFalse(workspace.remove("B"));
+
+        // Then the workspace has two nodes
+        Assertions.assertEquals(2, workspace.getOrder());
+        Assertions.assertFalse(workspace.contains("B"));
+        Assertions.assertArrayEquals(new int[]{0, 1}, workspace.getInAndOutDegrees("A"));
+        Assertions.assertArrayEquals(new int[]{1, 0}, workspace.getInAndOutDegrees("C"));
+        Set<String> successorsOfA = new HashSet<>();
+        workspace.successors("A").forEachRemaining(successorsOfA::add);
+        Assertions.assertEquals(1, successorsOfA.size());
+        Assertions.assertTrue(successorsOfA.contains("C"));
+        Set<Integer> indexesOfSuccessorsOfA = new HashSet<>();
+        workspace.forEachSuccessor(workspace.indexOf("A"), indexesOfSuccessorsOfA::add);
+        Assertions.assertEquals(Collections.singleton(workspace.indexOf("C")), indexesOfSuccessorsOfA);
+        Assertions.assertEquals("C", workspace.sinks().next());
+        Assertions.assertEquals("A", workspace.sources().next());
+        Assertions.assertThrows(NoSuchElementException.class, () -> {
+            workspace.connects("A", "B");
+        });
+
+        // And the original graph is left untouched
+        Assertions.assertEquals(3, g.getOrder());
+        Assertions.assertArrayEquals(new int[]{0, 2}, g.getInAndOutDegrees("A"));
+
+        // And can be turned back into a DirectedGraph
+        DirectedGraph<String> subgraph = workspace.toDirectedGraph();
+        Assertions.assertEquals(2, subgraph.getOrder());
+        Assertions.assertTrue(subgraph.connects("A", "C"));
+        Assertions.assertArrayEquals(new int[]{1, 0}, subgraph.getInAndOutDegrees("C"));
+    }
+
+}
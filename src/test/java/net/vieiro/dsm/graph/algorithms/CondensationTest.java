@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+class CondensationTest {
+
+    @Test
+    void testShouldCondenseAndLayerGraphs() {
+        // Given a graph
+        // A->B->C->D->E
+        //    B<-C  D<-E
+        // A->D  C->E  F
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>()
+                .connect("A", "B").connect("B", "C").connect("C", "B").connect("C", "D")
+                .connect("D", "E").connect("E", "D").connect("A", "D").connect("C", "E")
+                .connect("F", "F").build();
+
+        // When we compute its condensation
+        Condensation<String> condensation = Condensation.of(g);
+
+        // Then it has a component per cycle and node
+        Assertions.assertEquals(4, condensation.getComponentCount());
+        int a = condensation.componentOf(g.indexOf("A"));
+        int b = condensation.componentOf(g.indexOf("B"));
+        int d = condensation.componentOf(g.indexOf("D"));
+        int f = condensation.componentOf(g.indexOf("F"));
+        // And each edge between components once
+        List<Integer> successorsOfA = new ArrayList<>();
+        condensation.forEachSuccessor(a, successorsOfA::add);
+        Assertions.assertEquals(2, successorsOfA.size());
+        Assertions.assertTrue(successorsOfA.contains(b));
+        Assertions.assertTrue(successorsOfA.contains(d));
+        Assertions.assertEquals(1, condensation.successorCount(b));
+        Assertions.assertEquals(0, condensation.successorCount(d));
+        Assertions.assertEquals(0, condensation.successorCount(f));
+        // And the layers are the longest paths from the sources
+        Assertions.assertEquals(3, condensation.getLayerCount());
+        Assertions.assertEquals(0, condensation.layerOf(g.indexOf("A")));
+        Assertions.assertEquals(1, condensation.layerOf(g.indexOf("C")));
+        Assertions.assertEquals(2, condensation.layerOf(g.indexOf("E")));
+        Assertions.assertEquals(0, condensation.componentLayer(f));
+        // And nodes of each component are together, in topological order
+        int[] order = condensation.topologicalOrder();
+        Assertions.assertEquals(6, order.length);
+        for (int i = 1; i < order.length; i++) {
+            Assertions.assertTrue(condensation.componentOf(order[i - 1]) <= condensation.componentOf(order[i]));
+        }
+        // And it can be reused to compute a FAS
+        Assertions.assertEquals(FAS.fas(g, null), FAS.fas(condensation, null));
+    }
+
+}
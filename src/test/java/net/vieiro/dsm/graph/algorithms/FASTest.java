@@ -15,7 +15,12 @@
  */
 package net.vieiro.dsm.graph.algorithms;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -59,4 +64,60 @@ class FASTest {
         Assertions.assertEquals("B", fas.get(2));
     }
 
+    @Test
+    void testShouldOrderLargeAcyclicGraphsWithoutFeedbackArcs() {
+        // Given a large layered acyclic graph
+        int n = 5_000;
+        DirectedGraphBuilder<Integer> builder = new DirectedGraphBuilder<>();
+        for (int i = 1; i < n; i++) {
+            builder.connect(i / 2, i);
+            builder.connect((i - 1) / 3, i);
+        }
+        DirectedGraph<Integer> g = builder.build();
+        // When we compute a FAS
+        List<Integer> fas = FAS.fas(g);
+        // Then all nodes are ordered and no edge goes backwards
+        Assertions.assertEquals(n, fas.size());
+        Assertions.assertEquals(n, new HashSet<>(fas).size());
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            positions.put(fas.get(i), i);
+        }
+        for (int i = 1; i < n; i++) {
+            Assertions.assertTrue(positions.get(i / 2) < positions.get(i));
+            Assertions.assertTrue(positions.get((i - 1) / 3) < positions.get(i));
+        }
+    }
+
+    @Test
+    void testShouldOrderComponentsTopologicallyInParallel() {
+        // Given a random graph with many small cycles
+        Random random = new Random(21);
+        DirectedGraphBuilder<Integer> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 3_000; i++) {
+            int source = random.nextInt(1_000);
+            builder.connect(source, source + 1 + random.nextInt(20));
+            if (i % 10 == 0) {
+                builder.connect(source + 2, source);
+            }
+        }
+        DirectedGraph<Integer> g = builder.build();
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(g);
+
+        // When we compute a FAS in parallel and in this thread
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<Integer> parallel = FAS.fas(g, pool);
+        pool.shutdown();
+        List<Integer> sequential = FAS.fas(g, null);
+
+        // Then both are the same
+        Assertions.assertEquals(sequential, parallel);
+        // And the nodes of each component are together, with components in topological order
+        for (int i = 1; i < parallel.size(); i++) {
+            int previous = components.componentOf(g.indexOf(parallel.get(i - 1)));
+            int current = components.componentOf(g.indexOf(parallel.get(i)));
+            Assertions.assertTrue(previous == current || previous + 1 == current);
+        }
+    }
+
 }
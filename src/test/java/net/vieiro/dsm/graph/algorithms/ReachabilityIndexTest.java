@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+class ReachabilityIndexTest {
+
+    @Test
+    void testShouldAnswerLikeTheTransitiveClosure() {
+        // Given random graphs, acyclic and cyclic
+        Random random = new Random(24);
+        for (int backwardEvery : new int[]{0, 7}) {
+            DirectedGraphBuilder<Integer> builder = new DirectedGraphBuilder<>();
+            for (int i = 0; i < 800; i++) {
+                int source = random.nextInt(400);
+                builder.connect(source, source + 1 + random.nextInt(30));
+                if (backwardEvery > 0 && i % backwardEvery == 0) {
+                    builder.connect(source + 1 + random.nextInt(30), source);
+                }
+            }
+            DirectedGraph<Integer> g = builder.build();
+            Condensation<Integer> condensation = Condensation.of(g);
+            TransitiveClosure<Integer> closure = TransitiveClosure.of(condensation, null);
+
+            // When we build reachability indexes with one and several labelings
+            ForkJoinPool pool = new ForkJoinPool(4);
+            ReachabilityIndex<Integer> several = ReachabilityIndex.of(condensation, 4, 24, pool);
+            pool.shutdown();
+            ReachabilityIndex<Integer> one = ReachabilityIndex.of(condensation, 1, 24, null);
+
+            // Then they answer the same as the transitive closure
+            Assertions.assertEquals(4, several.getLabelings());
+            for (PrimitiveIterator.OfInt sources = g.nodeIndexes(); sources.hasNext();) {
+                int source = sources.nextInt();
+                for (PrimitiveIterator.OfInt targets = g.nodeIndexes(); targets.hasNext();) {
+                    int target = targets.nextInt();
+                    boolean expected = closure.reaches(source, target);
+                    Assertions.assertEquals(expected, several.reaches(source, target));
+                    Assertions.assertEquals(expected, one.reaches(source, target));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testShouldAnswerQueriesByNode() {
+        // Given a graph
+        // A->B->C  D
+        //    B<-C
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>()
+                .connect("A", "B").connect("B", "C").connect("C", "B").connect("D", "D").build();
+
+        // When we build a reachability index
+        ReachabilityIndex<String> index = ReachabilityIndex.of(g);
+
+        // Then it answers queries by node
+        Assertions.assertTrue(index.reaches("A", "C"));
+        Assertions.assertTrue(index.reaches("C", "B"));
+        Assertions.assertTrue(index.reaches("D", "D"));
+        Assertions.assertFalse(index.reaches("B", "A"));
+        Assertions.assertFalse(index.reaches("A", "D"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ReachabilityIndex.of(index.getCondensation(), 0, 0, null));
+    }
+
+}
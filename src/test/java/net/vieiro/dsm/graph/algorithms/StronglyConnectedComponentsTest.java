@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+import net.vieiro.dsm.graph.IntCursor;
+
+class StronglyConnectedComponentsTest {
+
+    @Test
+    void testShouldFindComponentsInTopologicalOrder() {
+        // Given a graph
+        // A->B->C->D->E
+        //    B<-C  D<-E
+        // F->F  A->D
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>()
+                .connect("A", "B").connect("B", "C").connect("C", "B").connect("C", "D")
+                .connect("D", "E").connect("E", "D").connect("A", "D").connect("F", "F").build();
+
+        // When we compute its strongly connected components
+        StronglyConnectedComponents scc = StronglyConnectedComponents.of(g);
+
+        // Then we get A, BC, DE and F
+        Assertions.assertEquals(4, scc.getCount());
+        int a = scc.componentOf(g.indexOf("A"));
+        int b = scc.componentOf(g.indexOf("B"));
+        int d = scc.componentOf(g.indexOf("D"));
+        Assertions.assertEquals(b, scc.componentOf(g.indexOf("C")));
+        Assertions.assertEquals(d, scc.componentOf(g.indexOf("E")));
+        Assertions.assertEquals(1, scc.size(scc.componentOf(g.indexOf("F"))));
+        Assertions.assertEquals(2, scc.size(b));
+        // And in topological order
+        Assertions.assertTrue(a < b);
+        Assertions.assertTrue(b < d);
+    }
+
+    @Test
+    void testShouldHandleDeepGraphsAndRemovedNodes() {
+        // Given a long cycle, and a random graph with a removed node
+        int n = 100_000;
+        DirectedGraphBuilder<Integer> builder = DirectedGraphBuilder.compact(n, n);
+        for (int i = 0; i < n; i++) {
+            builder.connect(i, (i + 1) % n);
+        }
+        DirectedGraph<Integer> cycle = builder.build();
+        Random random = new Random(21);
+        DirectedGraphBuilder<Integer> randomBuilder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 500; i++) {
+            randomBuilder.connect(random.nextInt(300), random.nextInt(300));
+        }
+        DirectedGraph<Integer> sparse = randomBuilder.build().remove(0);
+
+        // When we compute their strongly connected components
+        StronglyConnectedComponents cycleComponents = StronglyConnectedComponents.of(cycle);
+        StronglyConnectedComponents sparseComponents = StronglyConnectedComponents.of(sparse);
+
+        // Then the cycle is a single component
+        Assertions.assertEquals(1, cycleComponents.getCount());
+        Assertions.assertEquals(n, cycleComponents.size(0));
+        // And edges never go backwards between components
+        IntCursor targets = sparse.successorCursor();
+        for (PrimitiveIterator.OfInt nodes = sparse.nodeIndexes(); nodes.hasNext();) {
+            int node = nodes.nextInt();
+            targets.reset(node);
+            for (int target = targets.next(); target != IntCursor.END; target = targets.next()) {
+                Assertions.assertTrue(sparseComponents.componentOf(node) <= sparseComponents.componentOf(target));
+            }
+        }
+    }
+
+}
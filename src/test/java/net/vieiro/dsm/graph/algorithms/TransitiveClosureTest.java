@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+class TransitiveClosureTest {
+
+    @Test
+    void testShouldComputeReachability() {
+        // Given a graph
+        // A->B->C->D  E
+        //    B<-C
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>()
+                .connect("A", "B").connect("B", "C").connect("C", "B").connect("C", "D")
+                .connect("E", "E").build();
+
+        // When we compute its transitive closure
+        TransitiveClosure<String> closure = TransitiveClosure.of(g);
+
+        // Then every node reaches itself and its descendants only
+        Assertions.assertTrue(closure.reaches("A", "A"));
+        Assertions.assertTrue(closure.reaches("A", "D"));
+        Assertions.assertTrue(closure.reaches("C", "B"));
+        Assertions.assertFalse(closure.reaches("D", "A"));
+        Assertions.assertFalse(closure.reaches("A", "E"));
+        Assertions.assertEquals(4, closure.reachableCount(g.indexOf("A")));
+        Assertions.assertEquals(3, closure.reachableCount(g.indexOf("C")));
+        Assertions.assertEquals(1, closure.reachableCount(g.indexOf("E")));
+    }
+
+    @Test
+    void testShouldMatchBreadthFirstSearches() {
+        // Given a random graph with a removed node
+        Random random = new Random(23);
+        DirectedGraphBuilder<Integer> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 600; i++) {
+            builder.connect(random.nextInt(300), random.nextInt(300));
+        }
+        DirectedGraph<Integer> g = builder.build().remove(7);
+
+        // When we compute its transitive closure in parallel
+        ForkJoinPool pool = new ForkJoinPool(4);
+        TransitiveClosure<Integer> closure = TransitiveClosure.of(Condensation.of(g), pool);
+        pool.shutdown();
+
+        // Then it is the same as a breadth first search from each node
+        for (PrimitiveIterator.OfInt sources = g.nodeIndexes(); sources.hasNext();) {
+            int source = sources.nextInt();
+            BitSet reachable = breadthFirstSearch(g, source);
+            Assertions.assertEquals(reachable.cardinality(), closure.reachableCount(source));
+            for (PrimitiveIterator.OfInt targets = g.nodeIndexes(); targets.hasNext();) {
+                int target = targets.nextInt();
+                Assertions.assertEquals(reachable.get(target), closure.reaches(source, target));
+            }
+        }
+    }
+
+    static BitSet breadthFirstSearch(DirectedGraph<?> g, int source) {
+        BitSet reachable = new BitSet();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        reachable.set(source);
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            g.forEachSuccessor(queue.poll(), target -> {
+                if (!reachable.get(target)) {
+                    reachable.set(target);
+                    queue.add(target);
+                }
+            });
+        }
+        return reachable;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.algorithms;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+class VisibilityMetricsTest {
+
+    @Test
+    void testShouldClassifyAroundTheLargestCyclicGroup() {
+        // Given a graph with a cyclic group
+        // A->B->C->D  E
+        //    B<-C
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>()
+                .connect("A", "B").connect("B", "C").connect("C", "B").connect("C", "D")
+                .connect("E", "E").build();
+
+        // When we compute its visibility metrics
+        VisibilityMetrics<String> metrics = VisibilityMetrics.of(g);
+
+        // Then fan-ins and fan-outs include the nodes themselves
+        Assertions.assertEquals(1, metrics.fanIn("A"));
+        Assertions.assertEquals(4, metrics.fanOut("A"));
+        Assertions.assertEquals(3, metrics.fanIn("C"));
+        Assertions.assertEquals(3, metrics.fanOut("C"));
+        Assertions.assertEquals(4, metrics.fanIn("D"));
+        Assertions.assertEquals(1, metrics.fanOut("D"));
+        // And the propagation cost is the density of the visibility matrix
+        Assertions.assertEquals((4 + 3 + 3 + 1 + 1) / 25.0, metrics.getPropagationCost(), 1e-9);
+        // And nodes are classified with the thresholds of the cyclic group
+        Assertions.assertEquals(2, metrics.getLargestCyclicGroupSize());
+        Assertions.assertEquals(VisibilityMetrics.Category.CORE, metrics.category("B"));
+        Assertions.assertEquals(VisibilityMetrics.Category.CONTROL, metrics.category("A"));
+        Assertions.assertEquals(VisibilityMetrics.Category.SHARED, metrics.category("D"));
+        Assertions.assertEquals(VisibilityMetrics.Category.PERIPHERY, metrics.category("E"));
+    }
+
+    @Test
+    void testShouldUseMediansWithoutCycles() {
+        // Given a graph without cycles
+        // A->B->C  D->C
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>()
+                .connect("A", "B").connect("B", "C").connect("D", "C").build();
+
+        // When we compute its visibility metrics
+        VisibilityMetrics<String> metrics = VisibilityMetrics.of(g);
+
+        // Then nodes are classified with the medians: VFI {1, 2, 4, 1}, VFO {3, 2, 1, 2}
+        Assertions.assertEquals(0, metrics.getLargestCyclicGroupSize());
+        Assertions.assertEquals(1, metrics.getFanInThreshold());
+        Assertions.assertEquals(2, metrics.getFanOutThreshold());
+        Assertions.assertEquals(VisibilityMetrics.Category.CORE, metrics.category("A"));
+        Assertions.assertEquals(VisibilityMetrics.Category.SHARED, metrics.category("C"));
+    }
+
+    @Test
+    void testShouldMatchBreadthFirstSearches() {
+        // Given a random graph with a removed node
+        Random random = new Random(25);
+        DirectedGraphBuilder<Integer> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 2500; i++) {
+            builder.connect(random.nextInt(1500), random.nextInt(1500));
+        }
+        DirectedGraph<Integer> g = builder.build().remove(11);
+
+        // When we compute its visibility metrics in parallel
+        ForkJoinPool pool = new ForkJoinPool(4);
+        VisibilityMetrics<Integer> metrics = VisibilityMetrics.of(TransitiveClosure.of(Condensation.of(g), pool), pool);
+        pool.shutdown();
+
+        // Then fan-ins and fan-outs are the same as counted with breadth first searches
+        int[] fanIn = new int[g.getIndexCapacity()];
+        long visibility = 0;
+        for (PrimitiveIterator.OfInt sources = g.nodeIndexes(); sources.hasNext();) {
+            int source = sources.nextInt();
+            BitSet reachable = TransitiveClosureTest.breadthFirstSearch(g, source);
+            Assertions.assertEquals(reachable.cardinality(), metrics.fanOut(source));
+            reachable.stream().forEach(target -> fanIn[target]++);
+            visibility += reachable.cardinality();
+        }
+        for (PrimitiveIterator.OfInt nodes = g.nodeIndexes(); nodes.hasNext();) {
+            int node = nodes.nextInt();
+            Assertions.assertEquals(fanIn[node], metrics.fanIn(node));
+        }
+        int n = g.getOrder();
+        Assertions.assertEquals(visibility / ((double) n * n), metrics.getPropagationCost(), 1e-9);
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+import net.vieiro.dsm.graph.algorithms.FAS;
+import net.vieiro.dsm.graph.algorithms.VisibilityMetrics;
+
+class DSMExcelGeneratorTest {
+
+    @Test
+    void testShouldStreamMatricesWiderThanXLS() throws Exception {
+        // Given a chain with more nodes than XLS columns
+        int n = 400;
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < n - 1; i++) {
+            builder.connect("N" + i, "N" + (i + 1));
+        }
+        DirectedGraph<String> g = builder.build();
+        List<String> fas = FAS.fas(g);
+
+        // When we generate a sparse XLSX workbook
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DSMExcelGenerator<String> generator = new DSMExcelGenerator<>(g, fas, output, DSMExcelGenerator.Format.XLSX);
+        generator.setSparse(true);
+        generator.run();
+
+        // Then it has a header, a row per node and a footer
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Assertions.assertEquals(n + 1, sheet.getLastRowNum());
+            Assertions.assertEquals("Successors", sheet.getRow(0).getCell(2 + n).getStringCellValue());
+            // And each node depends on the next one
+            for (int i = 0; i < n - 1; i++) {
+                Row row = sheet.getRow(i + 1);
+                Assertions.assertEquals(fas.get(i), row.getCell(0).getStringCellValue());
+                int next = fas.indexOf("N" + (Integer.parseInt(fas.get(i).substring(1)) + 1));
+                Assertions.assertEquals("X", row.getCell(2 + next).getStringCellValue());
+                Assertions.assertEquals("1", row.getCell(2 + n).getStringCellValue());
+            }
+        }
+        // And XLS workbooks are rejected
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new DSMExcelGenerator<>(g, fas, output, DSMExcelGenerator.Format.XLS));
+    }
+
+    @Test
+    void testShouldRenderSparseMatricesWithTheSameContents() throws Exception {
+        // Given a random graph
+        Random random = new Random(16);
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 200; i++) {
+            builder.connect("N" + random.nextInt(60), "N" + random.nextInt(60));
+        }
+        DirectedGraph<String> g = builder.build();
+        List<String> fas = FAS.fas(g);
+        int n = fas.size();
+
+        for (DSMExcelGenerator.Format format : DSMExcelGenerator.Format.values()) {
+            // When we generate dense and sparse workbooks
+            ByteArrayOutputStream denseOutput = new ByteArrayOutputStream();
+            new DSMExcelGenerator<>(g, fas, denseOutput, format).run();
+            ByteArrayOutputStream sparseOutput = new ByteArrayOutputStream();
+            DSMExcelGenerator<String> generator = new DSMExcelGenerator<>(g, fas, sparseOutput, format);
+            generator.setSparse(true);
+            generator.run();
+
+            try (Workbook dense = WorkbookFactory.create(new ByteArrayInputStream(denseOutput.toByteArray()));
+                    Workbook sparse = WorkbookFactory.create(new ByteArrayInputStream(sparseOutput.toByteArray()))) {
+                Sheet denseSheet = dense.getSheetAt(0);
+                Sheet sparseSheet = sparse.getSheetAt(0);
+                // Then the sparse one is painted with conditional formatting
+                Assertions.assertEquals(format == DSMExcelGenerator.Format.XLS, dense instanceof HSSFWorkbook);
+                Assertions.assertEquals(4, sparseSheet.getSheetConditionalFormatting().getNumConditionalFormattings());
+                // And has cells only for dependencies and the diagonal
+                for (int i = 0; i < n; i++) {
+                    Row denseRow = denseSheet.getRow(i + 1);
+                    Row sparseRow = sparseSheet.getRow(i + 1);
+                    for (int j = 0; j < n + 3; j++) {
+                        Cell denseCell = denseRow.getCell(j);
+                        Cell sparseCell = sparseRow.getCell(j);
+                        if (sparseCell == null) {
+                            Assertions.assertEquals("", denseCell.getStringCellValue());
+                        } else {
+                            Assertions.assertEquals(denseCell.getStringCellValue(), sparseCell.getStringCellValue());
+                        }
+                    }
+                }
+                // And has the same footer
+                for (int j = 2; j < n + 2; j++) {
+                    Assertions.assertEquals(denseSheet.getRow(n + 1).getCell(j).getStringCellValue(),
+                            sparseSheet.getRow(n + 1).getCell(j).getStringCellValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testShouldEstimateColumnWidths() throws Exception {
+        // Given a graph with a long node name
+        String longName = "net.vieiro.dsm.graph.dsm.DSMExcelGenerator";
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>()
+                .connect(longName, "B").connect("B", "C").build();
+        List<String> fas = FAS.fas(g);
+
+        // When we generate a workbook estimating column widths
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DSMExcelGenerator<String> generator = new DSMExcelGenerator<>(g, fas, output, DSMExcelGenerator.Format.XLSX);
+        generator.setAutoSizeColumns(false);
+        generator.run();
+
+        // Then the name column fits the long name, and the successors column its header
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Assertions.assertTrue(sheet.getColumnWidth(0) > longName.length() * 256);
+            Assertions.assertTrue(sheet.getColumnWidth(2 + fas.size()) > "Successors".length() * 256);
+        }
+    }
+
+    @Test
+    void testShouldComputeRowsInParallel() throws Exception {
+        // Given a random graph with several batches of rows
+        Random random = new Random(19);
+        int n = 2 * DSMExcelGenerator.ROW_BATCH_SIZE + 10;
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 4 * n; i++) {
+            builder.connect("N" + random.nextInt(n), "N" + random.nextInt(n));
+        }
+        DirectedGraph<String> g = builder.build();
+        List<String> fas = FAS.fas(g);
+
+        // When we generate it in the writer thread and in a pool
+        ByteArrayOutputStream sequentialOutput = new ByteArrayOutputStream();
+        DSMExcelGenerator<String> sequential = new DSMExcelGenerator<>(g, fas, sequentialOutput, DSMExcelGenerator.Format.XLSX);
+        sequential.setSparse(true);
+        sequential.setAutoSizeColumns(false);
+        sequential.setPool(null);
+        sequential.run();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+        DSMExcelGenerator<String> parallel = new DSMExcelGenerator<>(g, fas, parallelOutput, DSMExcelGenerator.Format.XLSX);
+        parallel.setSparse(true);
+        parallel.setAutoSizeColumns(false);
+        parallel.setPool(pool);
+        parallel.run();
+        pool.shutdown();
+
+        // Then both workbooks have the same cells
+        try (Workbook expected = new XSSFWorkbook(new ByteArrayInputStream(sequentialOutput.toByteArray()));
+                Workbook actual = new XSSFWorkbook(new ByteArrayInputStream(parallelOutput.toByteArray()))) {
+            Sheet expectedSheet = expected.getSheetAt(0);
+            Sheet actualSheet = actual.getSheetAt(0);
+            Assertions.assertEquals(fas.size() + 1, actualSheet.getLastRowNum());
+            for (int i = 0; i <= fas.size() + 1; i++) {
+                Row expectedRow = expectedSheet.getRow(i);
+                Row actualRow = actualSheet.getRow(i);
+                Assertions.assertEquals(expectedRow.getPhysicalNumberOfCells(), actualRow.getPhysicalNumberOfCells());
+                for (Cell cell : expectedRow) {
+                    Assertions.assertEquals(cell.getStringCellValue(),
+                            actualRow.getCell(cell.getColumnIndex()).getStringCellValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testShouldWriteAMetricsSheet() throws Exception {
+        // Given a graph with a cyclic group and its metrics
+        DirectedGraph<String> g = new DirectedGraphBuilder<String>()
+                .connect("A", "B").connect("B", "C").connect("C", "B").connect("C", "D").build();
+        List<String> fas = FAS.fas(g);
+        VisibilityMetrics<String> metrics = VisibilityMetrics.of(g);
+
+        // When we generate a workbook with the metrics
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DSMExcelGenerator<String> generator = new DSMExcelGenerator<>(g, fas, output, DSMExcelGenerator.Format.XLSX);
+        generator.setSparse(true);
+        generator.setAutoSizeColumns(false);
+        generator.setMetrics(metrics);
+        generator.run();
+
+        // Then the second sheet has the metrics of each node, in the order of the matrix
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Metrics");
+            Assertions.assertEquals(1, workbook.getSheetIndex(sheet));
+            for (int i = 0; i < fas.size(); i++) {
+                Row row = sheet.getRow(i + 1);
+                String node = fas.get(i);
+                Assertions.assertEquals(node, row.getCell(1).getStringCellValue());
+                Assertions.assertEquals(metrics.fanIn(node), (int) row.getCell(2).getNumericCellValue());
+                Assertions.assertEquals(metrics.fanOut(node), (int) row.getCell(3).getNumericCellValue());
+                Assertions.assertEquals(metrics.category(node).name(), row.getCell(4).getStringCellValue());
+            }
+            // And the propagation cost after them
+            Row costRow = sheet.getRow(fas.size() + 2);
+            Assertions.assertEquals("Propagation cost", costRow.getCell(1).getStringCellValue());
+            Assertions.assertEquals(metrics.getPropagationCost(), costRow.getCell(2).getNumericCellValue(), 1e-9);
+        }
+    }
+
+}
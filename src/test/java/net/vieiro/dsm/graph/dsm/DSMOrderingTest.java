@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+import net.vieiro.dsm.graph.algorithms.FAS;
+
+class DSMOrderingTest {
+
+    @Test
+    void testShouldCountSuccessorsAndPredecessorsOfEachPosition() {
+        // Given a random graph with self-loops
+        Random random = new Random(17);
+        DirectedGraphBuilder<Integer> builder = new DirectedGraphBuilder<>();
+        for (int i = 0; i < 300; i++) {
+            builder.connect(random.nextInt(50), random.nextInt(50));
+        }
+        DirectedGraph<Integer> g = builder.build();
+        List<Integer> all = FAS.fas(g);
+        List<Integer> some = new ArrayList<>(all.subList(0, all.size() / 2));
+
+        for (List<Integer> order : Arrays.asList(all, some)) {
+            // When we compute the ordering of all nodes, and of some of them
+            DSMOrdering ordering = new DSMOrdering(g, order);
+
+            // Then counts are the same as testing each pair of nodes
+            int[] columns = new int[ordering.maxSuccessors()];
+            for (int i = 0; i < order.size(); i++) {
+                Assertions.assertEquals(i, ordering.positions[g.indexOf(order.get(i))]);
+                int successors = 0;
+                int predecessors = 0;
+                for (int j = 0; j < order.size(); j++) {
+                    successors += i != j && g.connects(order.get(i), order.get(j)) ? 1 : 0;
+                    predecessors += g.connects(order.get(j), order.get(i)) ? 1 : 0;
+                }
+                Assertions.assertEquals(successors, ordering.successors[i]);
+                Assertions.assertEquals(predecessors, ordering.predecessors[i]);
+                // And rows have the columns of the successors
+                int count = ordering.row(i, g.successorCursor(), columns);
+                Assertions.assertEquals(successors, count);
+                for (int k = 0; k < count; k++) {
+                    Assertions.assertTrue(g.connects(order.get(i), order.get(columns[k])));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.graph.dsm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+class DSMRendererTest {
+
+    private final DirectedGraph<String> graph = new DirectedGraphBuilder<String>()
+            .connect("A", "B").connect("A", "C").connect("B", "C").connect("C", "A")
+            .connect("\"D\", <E>", "A").build();
+    private final List<String> order = Arrays.asList("A", "B", "C", "\"D\", <E>");
+
+    @Test
+    void testShouldChooseRenderersByExtension() {
+        Assertions.assertTrue(DSMRenderer.forFileName("dsm.csv") instanceof CSVRenderer);
+        Assertions.assertTrue(DSMRenderer.forFileName("dsm.HTML") instanceof HTMLRenderer);
+        Assertions.assertTrue(DSMRenderer.forFileName("dsm.htm") instanceof HTMLRenderer);
+        Assertions.assertTrue(DSMRenderer.forFileName("dsm.pgm") instanceof PGMRenderer);
+        Assertions.assertTrue(DSMRenderer.forFileName("dsm.xls") instanceof ExcelRenderer);
+        Assertions.assertTrue(DSMRenderer.forFileName("output.xlsx") instanceof ExcelRenderer);
+    }
+
+    @Test
+    void testShouldRenderCSV() throws Exception {
+        // When we render the graph as CSV
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new CSVRenderer<String>().render(graph, order, output);
+
+        // Then we get the same layout as the Excel sheet, with quoted names
+        Assertions.assertEquals(
+                "Node,#,1,2,3,4,Successors\r\n"
+                + "A,1,,X,X,,2\r\n"
+                + "B,2,,,X,,1\r\n"
+                + "C,3,X,,,,1\r\n"
+                + "\"\"\"D\"\", <E>\",4,X,,,,1\r\n"
+                + "Predecessors,,2,1,2,0,\r\n",
+                new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testShouldRenderHTML() throws Exception {
+        // When we render the graph as HTML
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new HTMLRenderer<String>().render(graph, order, output);
+        String html = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+        // Then names are escaped, and there is a cell per pair of nodes
+        Assertions.assertTrue(html.startsWith("<!DOCTYPE html>"));
+        Assertions.assertTrue(html.contains(">&quot;D&quot;, &lt;E&gt;</td>"));
+        Assertions.assertEquals(4, html.split("<td class=\"d\">", -1).length - 1);
+        Assertions.assertEquals(5, html.split(">X</td>", -1).length - 1);
+        Assertions.assertTrue(html.endsWith("</html>\n"));
+    }
+
+    @Test
+    void testShouldRenderPGM() throws Exception {
+        // When we render the graph as an image
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new PGMRenderer<String>().render(graph, order, output);
+        byte[] bytes = output.toByteArray();
+
+        // Then we get a header and a pixel per cell
+        byte[] header = "P5\n4 4\n255\n".getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertArrayEquals(header, Arrays.copyOf(bytes, header.length));
+        Assertions.assertEquals(header.length + 16, bytes.length);
+        byte[] a = Arrays.copyOfRange(bytes, header.length, header.length + 4);
+        Assertions.assertArrayEquals(new byte[]{PGMRenderer.DIAGONAL, PGMRenderer.DEPENDENCY,
+            PGMRenderer.DEPENDENCY, PGMRenderer.EMPTY}, a);
+    }
+
+    @Test
+    void testShouldReportExcelErrors() {
+        // Given an output stream that fails
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+
+        // Then Excel renderers throw the error, as the other renderers do
+        Assertions.assertThrows(IOException.class,
+                () -> new ExcelRenderer<String>(DSMExcelGenerator.Format.XLS).render(graph, order, output));
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.io;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+class EdgeListLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testShouldLoadUTF8FilesInSeveralRegions() throws Exception {
+        // Given a UTF-8 file with a byte order mark and non ASCII names
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        bytes.write("Álvaro : Begoña\r\nBegoña : Çeltiç\nÁlvaro:Çeltiç\nnot an edge\nDaniel : Álvaro"
+                .getBytes(StandardCharsets.UTF_8));
+        Path file = directory.resolve("edges.txt");
+        Files.write(file, bytes.toByteArray());
+
+        // When we load it mapping small regions
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        EdgeListLoader.load(file, builder, 24);
+        DirectedGraph<String> g = builder.build();
+
+        // Then all edges are loaded
+        Assertions.assertEquals(4, g.getOrder());
+        Assertions.assertTrue(g.connects("Álvaro", "Begoña"));
+        Assertions.assertTrue(g.connects("Begoña", "Çeltiç"));
+        Assertions.assertTrue(g.connects("Álvaro", "Çeltiç"));
+        Assertions.assertTrue(g.connects("Daniel", "Álvaro"));
+
+        // And the result is the same as loading it in a single region
+        DirectedGraph<String> single = EdgeListLoader.load(file);
+        Assertions.assertEquals(g.nodes(), single.nodes());
+    }
+
+    @Test
+    void testShouldLoadFilesInParallel() throws Exception {
+        // Given a file with many edges
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("node").append(i % 97).append(" : node").append((i * 31) % 89).append('\n');
+        }
+        Path file = directory.resolve("edges.txt");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        // When we load it in parallel, in small regions and chunks
+        ForkJoinPool pool = new ForkJoinPool(4);
+        DirectedGraph<String> parallel = EdgeListLoader.loadParallel(file, pool, 1000, 8, 16).build();
+        pool.shutdown();
+
+        // Then the graph is the same as the one loaded sequentially
+        DirectedGraph<String> sequential = EdgeListLoader.load(file);
+        Assertions.assertEquals(sequential.nodes(), parallel.nodes());
+        for (String node : sequential.nodes()) {
+            Set<String> expected = new HashSet<>();
+            sequential.successors(node).forEachRemaining(expected::add);
+            Set<String> actual = new HashSet<>();
+            parallel.successors(node).forEachRemaining(actual::add);
+            Assertions.assertEquals(expected, actual);
+        }
+    }
+
+}
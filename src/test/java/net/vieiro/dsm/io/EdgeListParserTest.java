@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 Antonio Vieiro <antonio@vieiro.net>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.vieiro.dsm.io;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.vieiro.dsm.graph.DirectedGraph;
+import net.vieiro.dsm.graph.DirectedGraphBuilder;
+
+class EdgeListParserTest {
+
+    @Test
+    void testShouldParseEdgeLists() throws Exception {
+        // Given an edge list with blanks, carriage returns and invalid lines
+        String input = "  Alice : Bob\r\n"
+                + "Alice:Charlie\n"
+                + "\n"
+                + "Bob : Charlie : Dave\n"
+                + "Eve\n"
+                + " : Frank\n"
+                + "Bob\t: Charlie";
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        // When we parse it
+        new EdgeListParser(builder).parse(new StringReader(input));
+        DirectedGraph<String> g = builder.build();
+
+        // Then only valid lines are edges
+        Assertions.assertEquals(3, g.getOrder());
+        Assertions.assertTrue(g.connects("Alice", "Bob"));
+        Assertions.assertTrue(g.connects("Alice", "Charlie"));
+        Assertions.assertTrue(g.connects("Bob", "Charlie"));
+        Assertions.assertArrayEquals(new int[]{2, 0}, g.getInAndOutDegrees("Charlie"));
+    }
+
+    @Test
+    void testShouldParseLinesLongerThanTheBuffer() throws Exception {
+        StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            longName.append((char) ('a' + i % 26));
+        }
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            input.append(longName).append(':').append(i).append('\n');
+        }
+        DirectedGraphBuilder<String> builder = new DirectedGraphBuilder<>();
+        new EdgeListParser(builder).parse(new StringReader(input.toString()));
+        DirectedGraph<String> g = builder.build();
+        Assertions.assertEquals(4, g.getOrder());
+        Assertions.assertArrayEquals(new int[]{0, 3}, g.getInAndOutDegrees(longName.toString()));
+    }
+
+    @Test
+    void testShouldInternSymbols() {
+        SymbolTable symbols = new SymbolTable(2);
+        String text = "xAliceyAlicezBob";
+        String alice = symbols.intern(text, 1, 6);
+        Assertions.assertEquals("Alice", alice);
+        Assertions.assertSame(alice, symbols.intern(text, 7, 12));
+        for (int i = 0; i < 1000; i++) {
+            symbols.intern(Integer.toString(i), 0, Integer.toString(i).length());
+        }
+        Assertions.assertSame(alice, symbols.intern(text, 7, 12));
+        Assertions.assertEquals("Bob", symbols.intern(text, 13, 16));
+        Assertions.assertEquals(1002, symbols.size());
+    }
+
+}